@@ -1,17 +1,39 @@
 package digital.pragmatech.config;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "migration")
 public class MigrationConfig {
     
     private int batchSize = 500;
+    private int maxConcurrentMigrations = 1;
     private RetryConfig retry = new RetryConfig();
     private RateLimitConfig rateLimit = new RateLimitConfig();
+    private PipelineConfig pipeline = new PipelineConfig();
+    private CacheConfig cache = new CacheConfig();
+    private HedgingConfig hedging = new HedgingConfig();
+    private ConcurrencyConfig concurrency = new ConcurrencyConfig();
+    private StorageConfig storage = new StorageConfig();
+    private CheckpointConfig checkpoint = new CheckpointConfig();
+    private SnapshotConfig snapshot = new SnapshotConfig();
+    private StagingConfig staging = new StagingConfig();
+    private LanesConfig lanes = new LanesConfig();
+    private ProgressConfig progress = new ProgressConfig();
+    private ErrorsConfig errors = new ErrorsConfig();
+    private WebSocketTransportConfig websocket = new WebSocketTransportConfig();
+    private HistoryConfig history = new HistoryConfig();
     
     @Data
     public static class RetryConfig {
@@ -35,4 +57,129 @@ public class MigrationConfig {
             private int requestsPerMinute = 120;
         }
     }
-}
\ No newline at end of file
+    
+    @Data
+    public static class PipelineConfig {
+        private boolean enabled = false;
+        private int pageSize = 1000;
+        private int maxInFlightBatches = 4;
+        private int importConcurrency = 2;
+    }
+    
+    @Data
+    public static class CacheConfig {
+        private boolean enabled = true;
+        private int maxEntries = 500;
+        // TTL per API resource, keyed by the last literal path segment of the endpoint
+        private Map<String, Duration> ttl = new HashMap<>(Map.of(
+                "lists", Duration.ofMinutes(10),
+                "merge-fields", Duration.ofMinutes(30),
+                "interest-categories", Duration.ofMinutes(30),
+                "interests", Duration.ofMinutes(30),
+                "segments", Duration.ofMinutes(10),
+                "stores", Duration.ofMinutes(10),
+                "groups", Duration.ofMinutes(2)
+        ));
+    }
+    
+    @Data
+    public static class HedgingConfig {
+        private boolean enabled = false;
+        private double percentile = 95.0;
+        private Duration minDelay = Duration.ofMillis(250);
+        private int sampleSize = 200;
+        private int minSamples = 20;
+    }
+    
+    @Data
+    public static class ConcurrencyConfig {
+        private LimiterConfig mailchimp = new LimiterConfig(4, 1, 10);
+        private LimiterConfig mailerlite = new LimiterConfig(2, 1, 8);
+        private double increment = 1.0;
+        private double backoffRatio = 0.5;
+        private double latencyTolerance = 2.0;
+        
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class LimiterConfig {
+            private int initialLimit;
+            private int minLimit;
+            private int maxLimit;
+        }
+    }
+    
+    @Data
+    public static class StorageConfig {
+        // Local directory for checkpoints and other state that must survive a restart
+        private String directory = "data";
+    }
+    
+    @Data
+    public static class CheckpointConfig {
+        private boolean enabled = true;
+    }
+    
+    @Data
+    public static class SnapshotConfig {
+        private boolean enabled = true;
+        // How long captured source data is reused before it is extracted again
+        private Duration ttl = Duration.ofMinutes(30);
+        private int maxInMemoryMembers = 50_000;
+    }
+    
+    @Data
+    public static class StagingConfig {
+        private boolean enabled = true;
+        // Size of each memory-mapped segment file; a single member record must fit into one
+        private int segmentSizeMb = 64;
+    }
+    
+    @Data
+    public static class LanesConfig {
+        private boolean enabled = true;
+        // Priority order in which members are migrated by status
+        private List<String> statuses = new ArrayList<>(List.of("subscribed", "pending", "unsubscribed", "cleaned"));
+        private boolean skipCleaned = false;
+    }
+    
+    @Data
+    public static class ProgressConfig {
+        // Upper bound for progress messages per migration; phase and state changes are always sent at once
+        private int maxBroadcastsPerSecond = 4;
+        // Time constant over which phase throughput is smoothed for the time remaining estimate
+        private Duration throughputSmoothing = Duration.ofSeconds(30);
+        // Progress messages kept per migration for event stream clients that reconnect with Last-Event-ID
+        private int replayLimit = 100;
+        // Event streams are closed after this long; clients reconnect and continue where they left off
+        private Duration streamTimeout = Duration.ofMinutes(30);
+    }
+    
+    @Data
+    public static class ErrorsConfig {
+        // Errors kept in memory and reported on the status; all of them are written to <storage.directory>/errors
+        private int recentLimit = 100;
+        private int maxPageSize = 500;
+    }
+    
+    @Data
+    public static class HistoryConfig {
+        // Every run is recorded to <storage.directory>/history; this bounds the pages /api/migration/history serves
+        private int maxPageSize = 100;
+    }
+    
+    @Data
+    public static class WebSocketTransportConfig {
+        // Threads handling frames from clients; they only subscribe, so few are needed
+        private int inboundThreads = 2;
+        // Threads writing frames to clients, and frames queued for them before more threads are started
+        private int outboundThreads = 4;
+        private int outboundQueueCapacity = 1000;
+        // A client that takes longer than this for one send, or has more than this buffered, is disconnected
+        private Duration sendTimeLimit = Duration.ofSeconds(15);
+        private int sendBufferSizeKb = 512;
+        private int messageSizeKb = 64;
+        // Intermediate progress frames are skipped for a client with this many frames not yet written
+        private int maxPendingFrames = 8;
+    }
+}
@@ -1,25 +1,60 @@
 package digital.pragmatech.config;
 
+import digital.pragmatech.service.websocket.SlowConsumerPolicy;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
-    
+
+    private final MigrationConfig migrationConfig;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
     }
-    
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-migration")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        int threads = migrationConfig.getWebsocket().getInboundThreads();
+        registration.taskExecutor().corePoolSize(threads).maxPoolSize(threads);
+    }
+
+    // A client that is slow to read holds one of these threads only until its send time limit; the
+    // frames for it that pile up meanwhile are skipped where they can be
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        MigrationConfig.WebSocketTransportConfig websocket = migrationConfig.getWebsocket();
+        registration.taskExecutor()
+                .corePoolSize(websocket.getOutboundThreads())
+                .maxPoolSize(websocket.getOutboundThreads() * 2)
+                .queueCapacity(websocket.getOutboundQueueCapacity());
+        registration.interceptors(slowConsumerPolicy);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        MigrationConfig.WebSocketTransportConfig websocket = migrationConfig.getWebsocket();
+        registration.setSendTimeLimit((int) websocket.getSendTimeLimit().toMillis())
+                .setSendBufferSizeLimit(websocket.getSendBufferSizeKb() * 1024)
+                .setMessageSizeLimit(websocket.getMessageSizeKb() * 1024)
+                .addDecoratorFactory(slowConsumerPolicy);
+    }
+}
@@ -1,15 +1,28 @@
 package digital.pragmatech.controller;
 
+import digital.pragmatech.dto.request.ApiKeysRequest;
 import digital.pragmatech.dto.response.ApiResponse;
+import digital.pragmatech.dto.response.MigrationJobResponse;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.exception.MigrationException;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
 import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.migration.DeadLetterQueue;
 import digital.pragmatech.service.migration.MigrationOrchestrator;
 import digital.pragmatech.service.migration.MigrationProgressTracker;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.concurrent.CompletableFuture;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -20,36 +33,102 @@ public class MigrationController {
     private final MigrationOrchestrator migrationOrchestrator;
     private final MigrationProgressTracker progressTracker;
     
+    // Returns as soon as the migration is registered; progress is followed through the status URL
     @PostMapping("/start")
-    public CompletableFuture<ApiResponse<String>> startMigration() {
-        if (progressTracker.isMigrationInProgress()) {
-            return CompletableFuture.completedFuture(
-                ApiResponse.error("Migration is already in progress", "MIGRATION_IN_PROGRESS")
-            );
-        }
-        
-        return migrationOrchestrator.startMigration()
-                .thenApply(migrationId -> ApiResponse.success("Migration started successfully", migrationId))
-                .exceptionally(throwable -> {
-                    log.error("Failed to start migration", throwable);
-                    return ApiResponse.error("Failed to start migration: " + throwable.getMessage(), "MIGRATION_START_FAILED");
-                });
+    public ResponseEntity<ApiResponse<MigrationJobResponse>> startMigration(@RequestParam(required = false) Boolean resume,
+                                                                            @RequestBody(required = false) @Valid ApiKeysRequest credentials) {
+        if (progressTracker.isAtMigrationCapacity()) {
+            return ResponseEntity.ok(ApiResponse.error("Migration is already in progress", "MIGRATION_IN_PROGRESS"));
+        }
+        
+        Optional<String> resumable = migrationOrchestrator.findResumableMigration();
+        
+        if (resumable.isPresent() && resume == null) {
+            return ResponseEntity.ok(ApiResponse.<MigrationJobResponse>builder()
+                    .success(false)
+                    .message("An interrupted migration can be resumed. Start again with resume=true to continue it or resume=false to start over")
+                    .errorCode("RESUMABLE_MIGRATION_FOUND")
+                    .data(job(resumable.get()))
+                    .build());
+        }
+        
+        if (Boolean.TRUE.equals(resume) && resumable.isEmpty()) {
+            return ResponseEntity.ok(ApiResponse.error("No interrupted migration to resume", "NO_CHECKPOINT"));
+        }
+        
+        String migrationId;
+        try {
+            if (Boolean.TRUE.equals(resume)) {
+                migrationId = migrationOrchestrator.resumeFromCheckpoint(resumable.get(), credentials);
+            } else {
+                resumable.ifPresent(migrationOrchestrator::discardCheckpoint);
+                migrationId = migrationOrchestrator.startMigration(credentials);
+            }
+        } catch (MigrationException e) {
+            log.warn("Migration not started: {}", e.getMessage());
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage(), e.getErrorCode()));
+        } catch (Exception e) {
+            log.error("Failed to start migration", e);
+            return ResponseEntity.ok(ApiResponse.error("Failed to start migration: " + e.getMessage(), "MIGRATION_START_FAILED"));
+        }
+        
+        MigrationJobResponse job = job(migrationId);
+        return ResponseEntity.accepted()
+                .location(URI.create(job.getStatusUrl()))
+                .body(ApiResponse.success("Migration started successfully", job));
     }
     
+    // The status is written as serialized when it last changed; clients polling with If-None-Match
+    // get 304 Not Modified until it changes again
     @GetMapping("/status")
-    public ResponseEntity<ApiResponse<MigrationStatus>> getMigrationStatus() {
-        MigrationStatus status = progressTracker.getCurrentStatus();
+    public ResponseEntity<ApiResponse<SerializedStatus>> getMigrationStatus(@RequestParam(required = false) String migrationId) {
+        SerializedStatus status = progressTracker.getSerializedStatus(migrationId);
         
         if (status == null) {
             return ResponseEntity.ok(ApiResponse.error("No migration in progress", "NO_MIGRATION"));
         }
         
-        return ResponseEntity.ok(ApiResponse.success(status));
+        return ResponseEntity.ok()
+                .eTag(status.getEtag())
+                .body(ApiResponse.success(status));
+    }
+    
+    // Starting point for following the progress stream on /topic/migration-progress, which after
+    // that only sends deltas
+    @GetMapping("/progress")
+    public ResponseEntity<ApiResponse<ProgressMessage>> getProgressSnapshot(@RequestParam(required = false) String migrationId) {
+        ProgressMessage snapshot = progressTracker.getProgressSnapshot(migrationId);
+        
+        if (snapshot == null) {
+            return ResponseEntity.ok(ApiResponse.error("No migration in progress", "NO_MIGRATION"));
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(snapshot));
+    }
+    
+    // The same progress messages as server-sent events, for clients without STOMP; a client that
+    // reconnects with Last-Event-ID continues where it left off
+    @GetMapping(value = "/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProgress(@RequestParam(required = false) String migrationId,
+                                                     @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        MigrationStatus status = findStatus(migrationId);
+        SseEmitter emitter = status != null ? progressTracker.streamProgress(status.getId(), lastEventId) : null;
+        
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(emitter);
+    }
+    
+    @GetMapping("/list")
+    public ResponseEntity<ApiResponse<List<MigrationStatus>>> listMigrations() {
+        return ResponseEntity.ok(ApiResponse.success(progressTracker.getAllStatuses()));
     }
     
     @PostMapping("/pause")
-    public ResponseEntity<ApiResponse<String>> pauseMigration() {
-        MigrationStatus current = progressTracker.getCurrentStatus();
+    public ResponseEntity<ApiResponse<String>> pauseMigration(@RequestParam(required = false) String migrationId) {
+        MigrationStatus current = findStatus(migrationId);
         
         if (current == null) {
             return ResponseEntity.ok(ApiResponse.error("No migration in progress", "NO_MIGRATION"));
@@ -59,13 +138,13 @@ public class MigrationController {
             return ResponseEntity.ok(ApiResponse.error("Migration is not in progress", "MIGRATION_NOT_IN_PROGRESS"));
         }
         
-        progressTracker.pauseMigration();
+        migrationOrchestrator.pauseMigration(current.getId());
         return ResponseEntity.ok(ApiResponse.success("Migration paused successfully"));
     }
     
     @PostMapping("/resume")
-    public ResponseEntity<ApiResponse<String>> resumeMigration() {
-        MigrationStatus current = progressTracker.getCurrentStatus();
+    public ResponseEntity<ApiResponse<String>> resumeMigration(@RequestParam(required = false) String migrationId) {
+        MigrationStatus current = findStatus(migrationId);
         
         if (current == null) {
             return ResponseEntity.ok(ApiResponse.error("No migration found", "NO_MIGRATION"));
@@ -75,13 +154,13 @@ public class MigrationController {
             return ResponseEntity.ok(ApiResponse.error("Migration is not paused", "MIGRATION_NOT_PAUSED"));
         }
         
-        progressTracker.resumeMigration();
+        migrationOrchestrator.resumeMigration(current.getId());
         return ResponseEntity.ok(ApiResponse.success("Migration resumed successfully"));
     }
     
     @PostMapping("/cancel")
-    public ResponseEntity<ApiResponse<String>> cancelMigration() {
-        MigrationStatus current = progressTracker.getCurrentStatus();
+    public ResponseEntity<ApiResponse<String>> cancelMigration(@RequestParam(required = false) String migrationId) {
+        MigrationStatus current = findStatus(migrationId);
         
         if (current == null) {
             return ResponseEntity.ok(ApiResponse.error("No migration in progress", "NO_MIGRATION"));
@@ -91,20 +170,69 @@ public class MigrationController {
             return ResponseEntity.ok(ApiResponse.error("Migration already completed", "MIGRATION_COMPLETED"));
         }
         
-        progressTracker.failMigration("Migration cancelled by user");
+        migrationOrchestrator.cancelMigration(current.getId());
         return ResponseEntity.ok(ApiResponse.success("Migration cancelled successfully"));
     }
     
-    @GetMapping("/history")
-    public ResponseEntity<ApiResponse<Object>> getMigrationHistory() {
-        // For simplicity, we'll just return the current migration status
-        // In a real application, you might want to store migration history in a database
-        MigrationStatus current = progressTracker.getCurrentStatus();
-        
-        if (current == null) {
-            return ResponseEntity.ok(ApiResponse.success("No migration history found", null));
+    // Every error of a migration, oldest first; the status only carries the most recent ones
+    @GetMapping("/errors")
+    public ResponseEntity<ApiResponse<PageResponse<MigrationStatus.MigrationError>>> getErrors(@RequestParam(required = false) String migrationId,
+                                                                                            @RequestParam(defaultValue = "0") int page,
+                                                                                            @RequestParam(defaultValue = "50") int size) {
+        String id = migrationId;
+        if (id == null) {
+            MigrationStatus current = progressTracker.getCurrentStatus();
+            if (current == null) {
+                return ResponseEntity.ok(ApiResponse.error("No migration in progress", "NO_MIGRATION"));
+            }
+            id = current.getId();
+        } else if (!migrationOrchestrator.isKnownMigration(id)) {
+            return ResponseEntity.ok(ApiResponse.error("No migration found", "NO_MIGRATION"));
         }
         
-        return ResponseEntity.ok(ApiResponse.success("Migration history retrieved", current));
+        return ResponseEntity.ok(ApiResponse.success(progressTracker.getErrors(id, page, size)));
+    }
+    
+    @GetMapping("/dead-letters")
+    public ResponseEntity<ApiResponse<List<DeadLetterQueue.DeadLetter>>> getDeadLetters(@RequestParam String migrationId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(migrationOrchestrator.getDeadLetters(migrationId)));
+        } catch (MigrationException e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage(), e.getErrorCode()));
+        }
+    }
+    
+    // Re-imports the members the migration dead-lettered; those rejected again stay in the queue
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<ApiResponse<DeadLetterQueue.ReplayResult>> replayDeadLetters(@RequestParam String migrationId,
+                                                                                       @RequestBody(required = false) @Valid ApiKeysRequest credentials) {
+        try {
+            DeadLetterQueue.ReplayResult result = migrationOrchestrator.replayDeadLetters(migrationId, credentials);
+            return ResponseEntity.ok(ApiResponse.success("Dead letters replayed", result));
+        } catch (MigrationException e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage(), e.getErrorCode()));
+        } catch (Exception e) {
+            log.error("Failed to replay dead letters of migration {}", migrationId, e);
+            return ResponseEntity.ok(ApiResponse.error("Failed to replay dead letters: " + e.getMessage(), "DEAD_LETTER_REPLAY_FAILED"));
+        }
+    }
+    
+    // Recorded runs, most recently started first, including those from before a restart; with a
+    // migration id, the transitions recorded for that migration instead
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<PageResponse<MigrationHistoryEntry>>> getMigrationHistory(@RequestParam(required = false) String migrationId,
+                                                                                             @RequestParam(defaultValue = "0") int page,
+                                                                                             @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ApiResponse.success("Migration history retrieved",
+                progressTracker.getHistory(migrationId, page, size)));
+    }
+    
+    private MigrationJobResponse job(String migrationId) {
+        return new MigrationJobResponse(migrationId, "/api/migration/status?migrationId=" + migrationId);
+    }
+    
+    // Without an id the most recently started migration is meant
+    private MigrationStatus findStatus(String migrationId) {
+        return migrationId != null ? progressTracker.getStatus(migrationId) : progressTracker.getCurrentStatus();
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package digital.pragmatech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MigrationJobResponse {
+    
+    private String migrationId;
+    private String statusUrl;
+}
@@ -0,0 +1,18 @@
+package digital.pragmatech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,40 @@
+package digital.pragmatech.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import digital.pragmatech.model.common.MigrationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// One message of a migration's progress stream. A SNAPSHOT carries the full status at version;
+// a DELTA carries only what changed since baseVersion: changed status fields by name (phases only
+// with the phases that changed) and the errors added since, the first of them being error number
+// errorsFrom of the migration. Of more new errors than the status keeps, only the most recent are sent.
+// The status of a SNAPSHOT is written as the JSON it was serialized to once, for /status as well.
+// A fetched snapshot may already hold some of the errors of the delta that follows it, so clients
+// only add the errors numbered errorCount and up.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProgressMessage {
+    
+    private Type type;
+    private String migrationId;
+    private long version;
+    private Long baseVersion;
+    private SerializedStatus status;
+    private Map<String, Object> changes;
+    private Long errorsFrom;
+    private List<MigrationStatus.MigrationError> newErrors;
+    
+    public enum Type {
+        SNAPSHOT,
+        DELTA
+    }
+}
@@ -0,0 +1,58 @@
+package digital.pragmatech.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// A migration status together with its JSON, serialized once and written as is into every response
+// that carries it, so polling an unchanged status never serializes it again. The encoded bytes are
+// kept by the SerializedString, which is immutable. The ETag is taken from them; it is weak as
+// the response around the status differs from call to call.
+public final class SerializedStatus implements JsonSerializable {
+
+    private final MigrationStatus status;
+    private final SerializedString json;
+    private final String etag;
+
+    private SerializedStatus(MigrationStatus status, String json) {
+        this.status = status;
+        this.json = new SerializedString(json);
+        this.etag = "W/\"" + DigestUtils.md5DigestAsHex(this.json.asUnquotedUTF8()) + "\"";
+    }
+
+    public static SerializedStatus of(MigrationStatus status, ObjectMapper objectMapper) {
+        try {
+            return new SerializedStatus(status, objectMapper.writeValueAsString(status));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize status of migration " + status.getId(), e);
+        }
+    }
+
+    // Shared by every caller; not to be modified
+    public MigrationStatus getStatus() {
+        return status;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+}
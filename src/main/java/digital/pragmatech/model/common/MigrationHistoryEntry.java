@@ -0,0 +1,44 @@
+package digital.pragmatech.model.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// A migration run as recorded at one of its state or phase transitions. The last entry of a run
+// holds its final statistics, error counts and the timings of each phase.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MigrationHistoryEntry {
+    private String migrationId;
+    private MigrationStatus.MigrationState state;
+    private MigrationStatus.MigrationPhase phase;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime recordedAt;
+    private MigrationStatus.Statistics statistics;
+    private long errorCount;
+    private List<MigrationStatus.ErrorSummary> errorSummary;
+    private Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases;
+    
+    public static MigrationHistoryEntry of(MigrationStatus status, LocalDateTime recordedAt) {
+        return MigrationHistoryEntry.builder()
+                .migrationId(status.getId())
+                .state(status.getState())
+                .phase(status.getPhase())
+                .startedAt(status.getStartedAt())
+                .completedAt(status.getCompletedAt())
+                .recordedAt(recordedAt)
+                .statistics(status.getStatistics())
+                .errorCount(status.getErrorCount())
+                .errorSummary(status.getErrorSummary())
+                .phases(status.getPhases())
+                .build();
+    }
+}
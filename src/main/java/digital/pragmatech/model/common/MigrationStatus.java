@@ -1,14 +1,18 @@
 package digital.pragmatech.model.common;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class MigrationStatus {
     private String id;
     private MigrationPhase phase;
@@ -17,8 +21,16 @@ public class MigrationStatus {
     private LocalDateTime completedAt;
     private Progress progress;
     private Statistics statistics;
+    // Only the most recent errors; errorCount counts all of them and errorSummary groups them
     @Builder.Default
     private List<MigrationError> errors = new ArrayList<>();
+    private long errorCount;
+    @Builder.Default
+    private List<ErrorSummary> errorSummary = new ArrayList<>();
+    private Map<String, Integer> concurrencyLimits;
+    // Progress of each phase on its own, as independent phases run at the same time
+    @Builder.Default
+    private Map<MigrationPhase, PhaseProgress> phases = new EnumMap<>(MigrationPhase.class);
     
     public enum MigrationPhase {
         INITIALIZATION,
@@ -53,8 +65,23 @@ public class MigrationStatus {
         }
     }
     
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PhaseProgress {
+        private MigrationState state;
+        private int totalItems;
+        private int processedItems;
+        private int failedItems;
+        private LocalDateTime startedAt;
+        private LocalDateTime completedAt;
+    }
+    
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Statistics {
         private int totalSubscribers;
         private int migratedSubscribers;
@@ -69,6 +96,8 @@ public class MigrationStatus {
     
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class MigrationError {
         private LocalDateTime timestamp;
         private String phase;
@@ -78,4 +107,17 @@ public class MigrationStatus {
         private String errorCode;
         private boolean retryable;
     }
-}
\ No newline at end of file
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorSummary {
+        private String phase;
+        private String errorCode;
+        private String entity;
+        private long count;
+        private String lastErrorMessage;
+        private LocalDateTime lastOccurredAt;
+    }
+}
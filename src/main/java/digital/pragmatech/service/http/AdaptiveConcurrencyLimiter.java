@@ -0,0 +1,204 @@
+package digital.pragmatech.service.http;
+
+import digital.pragmatech.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// AIMD limit on concurrent requests to one upstream API. Each successful request with stable
+// latency grows the limit by increment/limit (about +increment per round trip of the whole window);
+// a 429, a timeout or a latency spike above latencyTolerance x the smoothed baseline multiplies it
+// by backoffRatio. At most one decrease is applied per baseline round trip so a burst of rejections
+// from the same window only counts once.
+// Requests to one API differ widely in size (a reference GET against a page of 1000 members, a
+// group assignment against a bulk import), so latency is compared per endpoint class: each class,
+// e.g. "GET members", keeps its own baseline, and a large request is only a spike against others
+// like it.
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_SMOOTHING = 0.1;
+    private static final String UNCLASSIFIED = "";
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double increment;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    // Fair, so callers from concurrently running migrations get slots in arrival order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+
+    private final Map<String, Double> baselineLatencyNanos = new HashMap<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double increment, double backoffRatio, double latencyTolerance) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.increment = increment;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        return execute(UNCLASSIFIED, call);
+    }
+
+    public <T> T execute(String endpointClass, Supplier<T> call) {
+        acquire();
+        return callAcquired(endpointClass, call);
+    }
+
+    // Runs a call for which a permit is already held and releases it with the observed outcome
+    public <T> T callAcquired(String endpointClass, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            release(Outcome.SUCCESS, System.nanoTime() - start, endpointClass);
+            return result;
+        } catch (RuntimeException e) {
+            // A call aborted by interrupting its thread says nothing about the upstream's capacity
+            Outcome outcome = Thread.currentThread().isInterrupted() ? Outcome.IGNORED : classify(e);
+            release(outcome, System.nanoTime() - start, endpointClass);
+            throw e;
+        } catch (Error e) {
+            release(Outcome.IGNORED, System.nanoTime() - start, endpointClass);
+            throw e;
+        }
+    }
+
+    public void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(name, null, "Interrupted while waiting for a request slot", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Outcome outcome, long latencyNanos) {
+        release(outcome, latencyNanos, UNCLASSIFIED);
+    }
+
+    public void release(Outcome outcome, long latencyNanos, String endpointClass) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            double baseline = baselineLatencyNanos.getOrDefault(endpointClass, 0.0);
+            boolean latencySpike = outcome == Outcome.SUCCESS && baseline > 0
+                    && latencyNanos > baseline * latencyTolerance;
+
+            if (outcome == Outcome.DROPPED || latencySpike) {
+                decrease(outcome == Outcome.DROPPED ? "request dropped" : "latency spike on " + endpointClass, baseline);
+            } else if (outcome == Outcome.SUCCESS) {
+                limit = Math.min(maxLimit, limit + increment / limit);
+            }
+
+            if (outcome == Outcome.SUCCESS) {
+                baselineLatencyNanos.put(endpointClass, baseline == 0
+                        ? latencyNanos
+                        : baseline + BASELINE_SMOOTHING * (latencyNanos - baseline));
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // baseline is that of the endpoint class the decrease came from, the round trip it stands for
+    private void decrease(String reason, double baseline) {
+        long now = System.nanoTime();
+        long window = Math.max((long) baseline, TimeUnit.MILLISECONDS.toNanos(100));
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < window) {
+            return;
+        }
+        lastDecreaseNanos = now;
+
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        log.info("{} concurrency limit reduced from {} to {} ({})", name, (int) previous, (int) limit, reason);
+    }
+
+    // The method and the resource the response cache keys its TTLs by, e.g. "GET members" for
+    // /lists/{listId}/members?count={count}
+    public static String endpointClass(String method, String endpoint) {
+        return method + " " + ResponseCache.resource(endpoint);
+    }
+
+    public static Outcome classify(Throwable throwable) {
+        if (throwable instanceof RestClientResponseException e && e.getStatusCode().value() == 429) {
+            return Outcome.DROPPED;
+        }
+        if (throwable instanceof ApiException e && e.getStatusCode() != null && e.isRateLimitError()) {
+            return Outcome.DROPPED;
+        }
+        if (throwable instanceof ResourceAccessException) {
+            // I/O failures on the client side, most notably connect and read timeouts
+            return Outcome.DROPPED;
+        }
+        return Outcome.IGNORED;
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+}
@@ -0,0 +1,69 @@
+package digital.pragmatech.service.http;
+
+import digital.pragmatech.config.MigrationConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ApiConcurrencyLimiters implements MeterBinder {
+
+    public static final String MAILCHIMP = "mailchimp";
+    public static final String MAILERLITE = "mailerlite";
+
+    private final AdaptiveConcurrencyLimiter mailchimp;
+    private final AdaptiveConcurrencyLimiter mailerLite;
+
+    public ApiConcurrencyLimiters(MigrationConfig migrationConfig) {
+        MigrationConfig.ConcurrencyConfig concurrency = migrationConfig.getConcurrency();
+
+        // Mailchimp rejects more than `connections` simultaneous requests per account, so that is a hard cap
+        int mailchimpMax = Math.min(concurrency.getMailchimp().getMaxLimit(),
+                migrationConfig.getRateLimit().getMailchimp().getConnections());
+
+        this.mailchimp = create("Mailchimp", concurrency, concurrency.getMailchimp(), mailchimpMax);
+        this.mailerLite = create("MailerLite", concurrency, concurrency.getMailerlite(),
+                concurrency.getMailerlite().getMaxLimit());
+    }
+
+    public AdaptiveConcurrencyLimiter mailchimp() {
+        return mailchimp;
+    }
+
+    public AdaptiveConcurrencyLimiter mailerLite() {
+        return mailerLite;
+    }
+
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        limits.put(MAILCHIMP, mailchimp.getLimit());
+        limits.put(MAILERLITE, mailerLite.getLimit());
+        return limits;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AdaptiveConcurrencyLimiter limiter : List.of(mailchimp, mailerLite)) {
+            String api = limiter.getName().toLowerCase();
+            Gauge.builder("migrator.api.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit on concurrent requests")
+                    .tag("api", api)
+                    .register(registry);
+            Gauge.builder("migrator.api.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests currently in flight")
+                    .tag("api", api)
+                    .register(registry);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter create(String name, MigrationConfig.ConcurrencyConfig concurrency,
+                                              MigrationConfig.ConcurrencyConfig.LimiterConfig limiter, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(name, limiter.getInitialLimit(), limiter.getMinLimit(), maxLimit,
+                concurrency.getIncrement(), concurrency.getBackoffRatio(), concurrency.getLatencyTolerance());
+    }
+}
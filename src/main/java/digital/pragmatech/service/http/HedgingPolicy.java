@@ -0,0 +1,197 @@
+package digital.pragmatech.service.http;
+
+import digital.pragmatech.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Hedged execution for idempotent requests: if the primary call has not answered once the
+// configured percentile of recent latency has elapsed, a duplicate is sent and whichever succeeds
+// first wins. Both calls hold a slot of the API's concurrency limiter; when no slot is free the
+// hedge is skipped rather than queued. The losing call is interrupted so it stops holding a
+// connection, and so are both when the caller gives up waiting.
+// Latency is tracked per endpoint class (e.g. "GET members"), so a page of members is only hedged
+// when it is slow for a page of members, not whenever it takes longer than a small lookup.
+@Slf4j
+public class HedgingPolicy {
+
+    private final String provider;
+    private final double percentile;
+    private final Duration minDelay;
+    private final int sampleSize;
+    private final int minSamples;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public HedgingPolicy(String provider, double percentile, Duration minDelay, int sampleSize, int minSamples) {
+        this.provider = provider;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.sampleSize = sampleSize;
+        this.minSamples = minSamples;
+    }
+
+    public <T> T execute(String endpointClass, Supplier<T> call, AdaptiveConcurrencyLimiter limiter) {
+        limiter.acquire();
+
+        // Until enough latency samples exist there is no basis for a hedge delay
+        Duration delay = hedgeDelay(endpointClass);
+        if (delay == null) {
+            return timed(endpointClass, call, limiter);
+        }
+
+        Attempt<T> primary = launch(endpointClass, call, limiter);
+        Attempt<T> hedge = null;
+        try {
+            try {
+                return primary.result.get(delay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Fall through to hedging
+            }
+
+            if (!limiter.tryAcquire()) {
+                log.debug("{} hedge skipped, concurrency limit reached", provider);
+                return await(primary.result);
+            }
+
+            hedgesSent.incrementAndGet();
+            log.debug("{} {} slower than {} ms, sending hedge", provider, endpointClass, delay.toMillis());
+            hedge = launch(endpointClass, call, limiter);
+            hedge.result.thenRun(() -> {
+                if (!primary.result.isDone()) {
+                    hedgesWon.incrementAndGet();
+                }
+            });
+
+            return await(firstSuccessful(primary.result, hedge.result));
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(provider, null, "Interrupted while waiting for response", e);
+        } finally {
+            primary.cancel();
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+    }
+
+    public Duration hedgeDelay(String endpointClass) {
+        LatencyTracker tracker = latencies.get(endpointClass);
+        if (tracker == null || tracker.getSampleCount() < minSamples) {
+            return null;
+        }
+        Duration observed = tracker.percentile(percentile);
+        return observed.compareTo(minDelay) > 0 ? observed : minDelay;
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    private <T> T timed(String endpointClass, Supplier<T> call, AdaptiveConcurrencyLimiter limiter) {
+        long start = System.nanoTime();
+        T result = limiter.callAcquired(endpointClass, call);
+        latencies.computeIfAbsent(endpointClass, key -> new LatencyTracker(sampleSize))
+                .record(Duration.ofNanos(System.nanoTime() - start));
+        return result;
+    }
+
+    // Runs the call for a slot that is already held. The slot is released however the attempt ends,
+    // including when it is cancelled before its thread got to the call.
+    private <T> Attempt<T> launch(String endpointClass, Supplier<T> call, AdaptiveConcurrencyLimiter limiter) {
+        Attempt<T> attempt = new Attempt<>();
+        executor.execute(() -> {
+            attempt.thread = Thread.currentThread();
+            if (attempt.cancelled) {
+                limiter.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0, endpointClass);
+                attempt.result.cancel(false);
+                return;
+            }
+            try {
+                attempt.result.complete(timed(endpointClass, call, limiter));
+            } catch (Throwable e) {
+                attempt.result.completeExceptionally(e);
+            }
+        });
+        return attempt;
+    }
+
+    private <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> candidate : List.of(primary, hedge)) {
+            candidate.whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    winner.complete(result);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(throwable);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(provider, null, "Interrupted while waiting for response", e);
+        }
+    }
+
+    private RuntimeException unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new ApiException(provider, null, cause.getMessage(), cause);
+    }
+
+    private static final class Attempt<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Thread thread;
+        private volatile boolean cancelled;
+
+        // Interrupts the call if it is still running; the limiter then releases its slot without
+        // counting the outcome
+        private void cancel() {
+            cancelled = true;
+            Thread running = thread;
+            if (running != null && !result.isDone()) {
+                running.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package digital.pragmatech.service.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Fixed-size ring buffer of the most recent request latencies.
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int sampleSize) {
+        this.samples = new long[Math.max(1, sampleSize)];
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    public synchronized Duration percentile(double percentile) {
+        if (count == 0) {
+            return null;
+        }
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(index, count - 1))]);
+    }
+
+    public synchronized int getSampleCount() {
+        return count;
+    }
+}
@@ -0,0 +1,97 @@
+package digital.pragmatech.service.http;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Size-bounded LRU cache for GET responses of rarely changing reference data. Only endpoints
+// whose resource (the last literal path segment, e.g. "segments" for
+// /lists/{listId}/segments) has a configured TTL are cached. Expired entries are kept so their
+// ETag can be used for If-None-Match revalidation.
+public class ResponseCache {
+
+    private final int maxEntries;
+    private final Map<String, Duration> ttlByResource;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(int maxEntries, Map<String, Duration> ttlByResource) {
+        this(maxEntries, ttlByResource, Clock.systemUTC());
+    }
+
+    public ResponseCache(int maxEntries, Map<String, Duration> ttlByResource, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlByResource = Map.copyOf(ttlByResource);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Duration ttlFor(String endpoint) {
+        Duration ttl = ttlByResource.get(resource(endpoint));
+        return ttl != null && !ttl.isZero() && !ttl.isNegative() ? ttl : null;
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public boolean isFresh(Entry entry) {
+        return entry != null && clock.instant().isBefore(entry.expiresAt());
+    }
+
+    public synchronized void put(String key, String endpoint, Object body, String etag, Duration ttl) {
+        entries.put(key, new Entry(endpoint, body, etag, clock.instant().plus(ttl)));
+    }
+
+    public synchronized void refresh(String key, Entry entry, Duration ttl) {
+        entries.put(key, new Entry(entry.endpoint(), entry.body(), entry.etag(), clock.instant().plus(ttl)));
+    }
+
+    // Drops every entry below the first path segment of a written endpoint, e.g. a POST to
+    // /groups/{groupId}/import-subscribers invalidates cached /groups responses.
+    public synchronized void invalidate(String endpoint) {
+        String root = root(endpoint);
+        entries.values().removeIf(entry -> root(entry.endpoint()).equals(root));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    static String resource(String endpoint) {
+        String[] segments = stripQuery(endpoint).split("/");
+        for (int i = segments.length - 1; i >= 0; i--) {
+            String segment = segments[i];
+            if (!segment.isEmpty() && !segment.startsWith("{")) {
+                return segment;
+            }
+        }
+        return "";
+    }
+
+    private static String root(String endpoint) {
+        String path = stripQuery(endpoint);
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static String stripQuery(String endpoint) {
+        int query = endpoint.indexOf('?');
+        return query < 0 ? endpoint : endpoint.substring(0, query);
+    }
+
+    public record Entry(String endpoint, Object body, String etag, Instant expiresAt) {
+    }
+}
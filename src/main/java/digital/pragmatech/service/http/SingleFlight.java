@@ -0,0 +1,53 @@
+package digital.pragmatech.service.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Coalesces concurrent identical calls: the first caller for a key performs the call and every
+// caller arriving while it is in flight receives the same result (or exception). Nothing is
+// retained once the call completes, so this is not a cache.
+public class SingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> promise = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, promise);
+
+        if (existing != null) {
+            return (T) await(existing);
+        }
+
+        try {
+            T result = call.get();
+            promise.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package digital.pragmatech.service.mailchimp;
 
 import digital.pragmatech.config.ApiConfiguration;
+import digital.pragmatech.config.MigrationConfig;
 import digital.pragmatech.exception.ApiException;
+import digital.pragmatech.service.http.AdaptiveConcurrencyLimiter;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
+import digital.pragmatech.service.http.HedgingPolicy;
+import digital.pragmatech.service.http.ResponseCache;
+import digital.pragmatech.service.http.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
@@ -22,8 +34,14 @@ public class MailchimpApiClient {
     
     private final RestClient.Builder restClientBuilder;
     private final ApiConfiguration apiConfiguration;
+    private final MigrationConfig migrationConfig;
+    private final ApiConcurrencyLimiters concurrencyLimiters;
+    
+    private final SingleFlight singleFlight = new SingleFlight();
     
     private RestClient restClient;
+    private ResponseCache responseCache;
+    private HedgingPolicy hedgingPolicy;
     
     private RestClient getRestClient() {
         if (restClient == null) {
@@ -54,27 +72,49 @@ public class MailchimpApiClient {
     }
     
     public <T> T get(String endpoint, Class<T> responseType, Object... uriVariables) {
-        try {
-            log.debug("Mailchimp GET request to: {}", endpoint);
-            return getRestClient()
-                    .get()
-                    .uri(endpoint, uriVariables)
-                    .retrieve()
-                    .body(responseType);
-        } catch (RestClientResponseException e) {
-            log.error("Mailchimp API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new ApiException("Mailchimp", e.getStatusCode(), e.getMessage(), e);
-        }
+        String key = requestKey(endpoint, responseType.getTypeName(), uriVariables);
+        return singleFlight.execute(key, () -> cachedGet(key, endpoint, spec -> spec.toEntity(responseType), uriVariables));
     }
     
     public <T> T get(String endpoint, ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+        String key = requestKey(endpoint, responseType.getType().getTypeName(), uriVariables);
+        return singleFlight.execute(key, () -> cachedGet(key, endpoint, spec -> spec.toEntity(responseType), uriVariables));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T cachedGet(String key, String endpoint, Function<RestClient.ResponseSpec, ResponseEntity<T>> reader,
+                            Object... uriVariables) {
+        ResponseCache cache = getResponseCache();
+        Duration ttl = cache != null ? cache.ttlFor(endpoint) : null;
+        ResponseCache.Entry cached = ttl != null ? cache.get(key) : null;
+        
+        if (cached != null && cache.isFresh(cached)) {
+            log.debug("Mailchimp GET served from cache: {}", endpoint);
+            return (T) cached.body();
+        }
+        
         try {
             log.debug("Mailchimp GET request to: {}", endpoint);
-            return getRestClient()
+            ResponseEntity<T> response = withIdempotentConnection(endpoint, () -> reader.apply(getRestClient()
                     .get()
                     .uri(endpoint, uriVariables)
-                    .retrieve()
-                    .body(responseType);
+                    .headers(headers -> {
+                        if (cached != null && cached.etag() != null) {
+                            headers.setIfNoneMatch(cached.etag());
+                        }
+                    })
+                    .retrieve()));
+            
+            if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                log.debug("Mailchimp GET revalidated via ETag: {}", endpoint);
+                cache.refresh(key, cached, ttl);
+                return (T) cached.body();
+            }
+            
+            if (ttl != null) {
+                cache.put(key, endpoint, response.getBody(), response.getHeaders().getETag(), ttl);
+            }
+            return response.getBody();
         } catch (RestClientResponseException e) {
             log.error("Mailchimp API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("Mailchimp", e.getStatusCode(), e.getMessage(), e);
@@ -84,45 +124,93 @@ public class MailchimpApiClient {
     public <T> T post(String endpoint, Object body, Class<T> responseType, Object... uriVariables) {
         try {
             log.debug("Mailchimp POST request to: {}", endpoint);
-            return getRestClient()
+            return withConnection("POST", endpoint, () -> getRestClient()
                     .post()
                     .uri(endpoint, uriVariables)
                     .body(body)
                     .retrieve()
-                    .body(responseType);
+                    .body(responseType));
         } catch (RestClientResponseException e) {
             log.error("Mailchimp API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("Mailchimp", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
         }
     }
     
     public <T> T put(String endpoint, Object body, Class<T> responseType, Object... uriVariables) {
         try {
             log.debug("Mailchimp PUT request to: {}", endpoint);
-            return getRestClient()
+            return withConnection("PUT", endpoint, () -> getRestClient()
                     .put()
                     .uri(endpoint, uriVariables)
                     .body(body)
                     .retrieve()
-                    .body(responseType);
+                    .body(responseType));
         } catch (RestClientResponseException e) {
             log.error("Mailchimp API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("Mailchimp", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
         }
     }
     
     public void delete(String endpoint, Object... uriVariables) {
         try {
             log.debug("Mailchimp DELETE request to: {}", endpoint);
-            getRestClient()
+            withConnection("DELETE", endpoint, () -> getRestClient()
                     .delete()
                     .uri(endpoint, uriVariables)
                     .retrieve()
-                    .toBodilessEntity();
+                    .toBodilessEntity());
         } catch (RestClientResponseException e) {
             log.error("Mailchimp API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("Mailchimp", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
+        }
+    }
+    
+    // Every request holds one of the account's concurrent connections for its duration
+    private <T> T withConnection(String method, String endpoint, Supplier<T> call) {
+        return concurrencyLimiters.mailchimp().execute(AdaptiveConcurrencyLimiter.endpointClass(method, endpoint), call);
+    }
+    
+    private <T> T withIdempotentConnection(String endpoint, Supplier<T> call) {
+        if (migrationConfig.getHedging().isEnabled()) {
+            return getHedgingPolicy().execute(AdaptiveConcurrencyLimiter.endpointClass("GET", endpoint), call,
+                    concurrencyLimiters.mailchimp());
+        }
+        return withConnection("GET", endpoint, call);
+    }
+    
+    private synchronized HedgingPolicy getHedgingPolicy() {
+        if (hedgingPolicy == null) {
+            MigrationConfig.HedgingConfig hedging = migrationConfig.getHedging();
+            hedgingPolicy = new HedgingPolicy("Mailchimp", hedging.getPercentile(), hedging.getMinDelay(),
+                    hedging.getSampleSize(), hedging.getMinSamples());
         }
+        return hedgingPolicy;
+    }
+    
+    // Synchronized like getHedgingPolicy: pipeline workers, hedges and phases call in at once, and
+    // all of them must see the one cache that invalidations go to
+    private synchronized ResponseCache getResponseCache() {
+        if (responseCache == null && migrationConfig.getCache().isEnabled()) {
+            responseCache = new ResponseCache(migrationConfig.getCache().getMaxEntries(), migrationConfig.getCache().getTtl());
+        }
+        return responseCache;
+    }
+    
+    private void invalidateCache(String endpoint) {
+        ResponseCache cache = getResponseCache();
+        if (cache != null) {
+            cache.invalidate(endpoint);
+        }
+    }
+    
+    private String requestKey(String endpoint, String responseType, Object... uriVariables) {
+        return endpoint + Arrays.toString(uriVariables) + "->" + responseType;
     }
     
     public boolean testConnection() {
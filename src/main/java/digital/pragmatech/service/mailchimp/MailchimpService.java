@@ -3,8 +3,10 @@ package digital.pragmatech.service.mailchimp;
 import digital.pragmatech.model.common.*;
 import digital.pragmatech.model.mailchimp.MailchimpList;
 import digital.pragmatech.model.mailchimp.MailchimpMember;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
@@ -14,16 +16,41 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class MailchimpService {
     
     private final MailchimpApiClient apiClient;
+    private final SourceSnapshot snapshot;
+    
+    public MailchimpService(MailchimpApiClient apiClient) {
+        this(apiClient, SourceSnapshot.disabled());
+    }
+    
+    public MailchimpService(MailchimpApiClient apiClient, SourceSnapshot snapshot) {
+        this.apiClient = apiClient;
+        this.snapshot = snapshot;
+    }
+    
+    @Autowired
+    public MailchimpService(MailchimpApiClient apiClient, MigrationConfig migrationConfig, ObjectMapper objectMapper) {
+        this(apiClient, migrationConfig.getSnapshot().isEnabled()
+                ? new SourceSnapshot(migrationConfig, objectMapper)
+                : SourceSnapshot.disabled());
+    }
     
     public boolean testConnection() {
         return apiClient.testConnection();
     }
     
     public List<MailchimpList> getAllLists() {
+        return snapshot.lists(this::fetchLists);
+    }
+    
+    // Drops the captured source data, e.g. once it has been migrated
+    public void discardSnapshot() {
+        snapshot.discard();
+    }
+    
+    private List<MailchimpList> fetchLists() {
         Map<String, Object> response = apiClient.get("/lists?count=1000", 
                 new ParameterizedTypeReference<Map<String, Object>>() {});
         
@@ -36,39 +63,71 @@ public class MailchimpService {
     }
     
     public List<MailchimpMember> getAllMembers(String listId) {
+        return getMembersFrom(listId, 0);
+    }
+    
+    public List<MailchimpMember> getMembersFrom(String listId, int startOffset) {
         List<MailchimpMember> allMembers = new ArrayList<>();
-        int offset = 0;
+        int offset = startOffset;
         int count = 1000;
         boolean hasMore = true;
         
         while (hasMore) {
-            Map<String, Object> response = apiClient.get(
-                    "/lists/{listId}/members?count={count}&offset={offset}&status=subscribed,unsubscribed,cleaned,pending",
-                    new ParameterizedTypeReference<Map<String, Object>>() {},
-                    listId, count, offset);
+            List<MailchimpMember> batchMembers = getMembersPage(listId, offset, count);
+            allMembers.addAll(batchMembers);
             
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> members = (List<Map<String, Object>>) response.get("members");
-            
-            if (members == null || members.isEmpty()) {
-                hasMore = false;
-            } else {
-                List<MailchimpMember> batchMembers = members.stream()
-                        .map(this::mapToMailchimpMember)
-                        .collect(Collectors.toList());
-                allMembers.addAll(batchMembers);
-                
-                offset += count;
-                hasMore = members.size() == count;
-            }
-            
-            log.debug("Fetched {} members for list {}, offset: {}", members != null ? members.size() : 0, listId, offset);
+            offset += count;
+            hasMore = batchMembers.size() == count;
         }
         
         return allMembers;
     }
     
+    public List<MailchimpMember> getMembersPage(String listId, int offset, int count) {
+        return getMembersPage(listId, null, offset, count);
+    }
+    
+    // status narrows the page to members with that status; null reads members of every status
+    public List<MailchimpMember> getMembersPage(String listId, String status, int offset, int count) {
+        String snapshotKey = status == null ? listId : listId + "-" + status;
+        return snapshot.membersPage(snapshotKey, offset, count, () -> fetchMembersPage(listId, status, offset, count));
+    }
+    
+    private List<MailchimpMember> fetchMembersPage(String listId, String status, int offset, int count) {
+        Map<String, Object> response = apiClient.get(
+                "/lists/{listId}/members?count={count}&offset={offset}&status={status}",
+                new ParameterizedTypeReference<Map<String, Object>>() {},
+                listId, count, offset, status != null ? status : "subscribed,unsubscribed,cleaned,pending");
+        
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> members = (List<Map<String, Object>>) response.get("members");
+        
+        log.debug("Fetched {} members for list {}, offset: {}", members != null ? members.size() : 0, listId, offset);
+        
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        
+        return members.stream()
+                .map(this::mapToMailchimpMember)
+                .collect(Collectors.toList());
+    }
+    
+    // Number of members with that status (of every status for null), without fetching any of them
+    public int countMembers(String listId, String status) {
+        Map<String, Object> response = apiClient.get(
+                "/lists/{listId}/members?count=1&offset=0&status={status}&fields=total_items",
+                new ParameterizedTypeReference<Map<String, Object>>() {},
+                listId, status != null ? status : "subscribed,unsubscribed,cleaned,pending");
+        
+        return response.get("total_items") instanceof Number total ? total.intValue() : 0;
+    }
+    
     public List<String> getAllTags(String listId) {
+        return snapshot.tags(listId, () -> fetchTags(listId));
+    }
+    
+    private List<String> fetchTags(String listId) {
         Set<String> allTags = new HashSet<>();
         
         // Get tags from segments
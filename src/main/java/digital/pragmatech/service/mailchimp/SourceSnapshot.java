@@ -0,0 +1,209 @@
+package digital.pragmatech.service.mailchimp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import digital.pragmatech.service.storage.StagingStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Copy of the source account's lists, tags and members, captured by whichever read comes first
+// and reused for the rest of the session (ttl), so analysing and then migrating an account
+// extracts every member once instead of twice. Members are captured page by page as they are
+// read, in order; a read that does not continue the captured prefix of a list (e.g. resuming
+// in the middle of it) goes to the API directly. Once maxInMemoryMembers members are held, the
+// rest spill to files under <storage.directory>/snapshots, unless migrations stage the members they
+// extract on disk themselves: a second copy of the same members would only double the writes, so
+// the captured prefix then stops at the in-memory limit and later pages come from the API.
+@Slf4j
+public class SourceSnapshot {
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maxInMemoryMembers;
+    private final boolean spill;
+    private final Clock clock;
+    private Session session;
+
+    public SourceSnapshot(MigrationConfig migrationConfig, ObjectMapper objectMapper) {
+        this(Path.of(migrationConfig.getStorage().getDirectory(), "snapshots"), objectMapper,
+                migrationConfig.getSnapshot().getTtl(), migrationConfig.getSnapshot().getMaxInMemoryMembers(),
+                !migrationConfig.getStaging().isEnabled(), Clock.systemUTC());
+    }
+
+    SourceSnapshot(Path directory, ObjectMapper objectMapper, Duration ttl, int maxInMemoryMembers, boolean spill,
+                   Clock clock) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.maxInMemoryMembers = maxInMemoryMembers;
+        this.spill = spill;
+        this.clock = clock;
+    }
+
+    // Every read goes to the API
+    public static SourceSnapshot disabled() {
+        return new SourceSnapshot(null, null, Duration.ZERO, 0, false, Clock.systemUTC());
+    }
+
+    public List<MailchimpList> lists(Supplier<List<MailchimpList>> loader) {
+        if (directory == null) {
+            return loader.get();
+        }
+        Session current = session();
+        synchronized (current) {
+            if (current.lists == null) {
+                current.lists = List.copyOf(loader.get());
+            }
+            return current.lists;
+        }
+    }
+
+    public List<String> tags(String listId, Supplier<List<String>> loader) {
+        if (directory == null) {
+            return loader.get();
+        }
+        return session().tags.computeIfAbsent(listId, id -> List.copyOf(loader.get()));
+    }
+
+    public List<MailchimpMember> membersPage(String listId, int offset, int count,
+                                             Supplier<List<MailchimpMember>> loader) {
+        if (directory == null) {
+            return loader.get();
+        }
+        Session current = session();
+        return current.members.computeIfAbsent(listId, id -> new ListMembers(id, current))
+                .page(offset, count, loader);
+    }
+
+    // Forget everything captured so far; the next read starts a new session
+    public synchronized void discard() {
+        if (session != null) {
+            session.discard();
+            session = null;
+        }
+    }
+
+    private synchronized Session session() {
+        if (session != null && clock.instant().isAfter(session.startedAt.plus(ttl))) {
+            log.info("Source snapshot from {} expired", session.startedAt);
+            discard();
+        }
+        if (session == null) {
+            session = new Session(clock.instant(), directory.resolve(UUID.randomUUID().toString()));
+        }
+        return session;
+    }
+
+    private class Session {
+
+        private final Instant startedAt;
+        private final Path directory;
+        private final ConcurrentHashMap<String, List<String>> tags = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ListMembers> members = new ConcurrentHashMap<>();
+        private final AtomicInteger inMemory = new AtomicInteger();
+        private List<MailchimpList> lists;
+
+        Session(Instant startedAt, Path directory) {
+            this.startedAt = startedAt;
+            this.directory = directory;
+        }
+
+        void discard() {
+            members.values().forEach(ListMembers::discard);
+            StagingStore.deleteDirectory(directory);
+        }
+    }
+
+    // Captured prefix of one list: the first members on the heap, the rest in a staging store on disk
+    private class ListMembers {
+
+        private final String listId;
+        private final Session session;
+        private final List<MailchimpMember> memory = new ArrayList<>();
+        private StagingStore<MailchimpMember> spilled;
+        private boolean complete;
+        private boolean discarded;
+
+        ListMembers(String listId, Session session) {
+            this.listId = listId;
+            this.session = session;
+        }
+
+        synchronized List<MailchimpMember> page(int offset, int count, Supplier<List<MailchimpMember>> loader) {
+            if (discarded) {
+                return loader.get();
+            }
+            if (complete || offset + count <= size()) {
+                return read(offset, Math.min(count, Math.max(0, size() - offset)));
+            }
+            if (offset != size()) {
+                return loader.get();
+            }
+
+            List<MailchimpMember> page = loader.get();
+            if (append(page)) {
+                // Same end-of-list rule as the paging loops reading it
+                complete = page.size() < count;
+            }
+            return page;
+        }
+
+        synchronized void discard() {
+            discarded = true;
+            memory.clear();
+            if (spilled != null) {
+                spilled.delete();
+            }
+        }
+
+        private int size() {
+            return memory.size() + (spilled != null ? (int) spilled.size() : 0);
+        }
+
+        // False if the page was not captured: the prefix ends where it is and later pages are not read from it
+        private boolean append(List<MailchimpMember> page) {
+            if (spilled == null && session.inMemory.addAndGet(page.size()) <= maxInMemoryMembers) {
+                memory.addAll(page);
+                return true;
+            }
+            if (spilled == null) {
+                session.inMemory.addAndGet(-page.size());
+                if (!spill) {
+                    return false;
+                }
+                spilled = new StagingStore<>(session.directory.resolve(listId), objectMapper, MailchimpMember.class);
+            }
+            spilled.append(page);
+            return true;
+        }
+
+        private List<MailchimpMember> read(int offset, int count) {
+            if (count <= 0) {
+                return List.of();
+            }
+            int end = offset + count;
+            List<MailchimpMember> result = new ArrayList<>(count);
+            if (offset < memory.size()) {
+                result.addAll(memory.subList(offset, Math.min(end, memory.size())));
+            }
+            if (end > memory.size()) {
+                int from = Math.max(offset, memory.size());
+                result.addAll(spilled.read(from - memory.size(), end - from));
+            }
+            return result;
+        }
+    }
+}
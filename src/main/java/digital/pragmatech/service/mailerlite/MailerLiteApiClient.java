@@ -1,16 +1,27 @@
 package digital.pragmatech.service.mailerlite;
 
 import digital.pragmatech.config.ApiConfiguration;
+import digital.pragmatech.config.MigrationConfig;
 import digital.pragmatech.exception.ApiException;
+import digital.pragmatech.service.http.AdaptiveConcurrencyLimiter;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
+import digital.pragmatech.service.http.ResponseCache;
+import digital.pragmatech.service.http.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
@@ -19,8 +30,13 @@ public class MailerLiteApiClient {
     
     private final RestClient.Builder restClientBuilder;
     private final ApiConfiguration apiConfiguration;
+    private final MigrationConfig migrationConfig;
+    private final ApiConcurrencyLimiters concurrencyLimiters;
+    
+    private final SingleFlight singleFlight = new SingleFlight();
     
     private RestClient restClient;
+    private ResponseCache responseCache;
     
     private RestClient getRestClient() {
         if (restClient == null) {
@@ -40,27 +56,49 @@ public class MailerLiteApiClient {
     }
     
     public <T> T get(String endpoint, Class<T> responseType, Object... uriVariables) {
-        try {
-            log.debug("MailerLite GET request to: {}", endpoint);
-            return getRestClient()
-                    .get()
-                    .uri(endpoint, uriVariables)
-                    .retrieve()
-                    .body(responseType);
-        } catch (RestClientResponseException e) {
-            log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
-        }
+        String key = requestKey(endpoint, responseType.getTypeName(), uriVariables);
+        return singleFlight.execute(key, () -> cachedGet(key, endpoint, spec -> spec.toEntity(responseType), uriVariables));
     }
     
     public <T> T get(String endpoint, ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+        String key = requestKey(endpoint, responseType.getType().getTypeName(), uriVariables);
+        return singleFlight.execute(key, () -> cachedGet(key, endpoint, spec -> spec.toEntity(responseType), uriVariables));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T cachedGet(String key, String endpoint, Function<RestClient.ResponseSpec, ResponseEntity<T>> reader,
+                            Object... uriVariables) {
+        ResponseCache cache = getResponseCache();
+        Duration ttl = cache != null ? cache.ttlFor(endpoint) : null;
+        ResponseCache.Entry cached = ttl != null ? cache.get(key) : null;
+        
+        if (cached != null && cache.isFresh(cached)) {
+            log.debug("MailerLite GET served from cache: {}", endpoint);
+            return (T) cached.body();
+        }
+        
         try {
             log.debug("MailerLite GET request to: {}", endpoint);
-            return getRestClient()
+            ResponseEntity<T> response = withConnection("GET", endpoint, () -> reader.apply(getRestClient()
                     .get()
                     .uri(endpoint, uriVariables)
-                    .retrieve()
-                    .body(responseType);
+                    .headers(headers -> {
+                        if (cached != null && cached.etag() != null) {
+                            headers.setIfNoneMatch(cached.etag());
+                        }
+                    })
+                    .retrieve()));
+            
+            if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                log.debug("MailerLite GET revalidated via ETag: {}", endpoint);
+                cache.refresh(key, cached, ttl);
+                return (T) cached.body();
+            }
+            
+            if (ttl != null) {
+                cache.put(key, endpoint, response.getBody(), response.getHeaders().getETag(), ttl);
+            }
+            return response.getBody();
         } catch (RestClientResponseException e) {
             log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
@@ -70,60 +108,93 @@ public class MailerLiteApiClient {
     public <T> T post(String endpoint, Object body, Class<T> responseType, Object... uriVariables) {
         try {
             log.debug("MailerLite POST request to: {} with body: {}", endpoint, body);
-            return getRestClient()
+            return withConnection("POST", endpoint, () -> getRestClient()
                     .post()
                     .uri(endpoint, uriVariables)
                     .body(body)
                     .retrieve()
-                    .body(responseType);
+                    .body(responseType));
         } catch (RestClientResponseException e) {
             log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
         }
     }
     
     public <T> T post(String endpoint, Object body, ParameterizedTypeReference<T> responseType, Object... uriVariables) {
         try {
             log.debug("MailerLite POST request to: {} with body: {}", endpoint, body);
-            return getRestClient()
+            return withConnection("POST", endpoint, () -> getRestClient()
                     .post()
                     .uri(endpoint, uriVariables)
                     .body(body)
                     .retrieve()
-                    .body(responseType);
+                    .body(responseType));
         } catch (RestClientResponseException e) {
             log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
         }
     }
     
     public <T> T put(String endpoint, Object body, Class<T> responseType, Object... uriVariables) {
         try {
             log.debug("MailerLite PUT request to: {} with body: {}", endpoint, body);
-            return getRestClient()
+            return withConnection("PUT", endpoint, () -> getRestClient()
                     .put()
                     .uri(endpoint, uriVariables)
                     .body(body)
                     .retrieve()
-                    .body(responseType);
+                    .body(responseType));
         } catch (RestClientResponseException e) {
             log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
         }
     }
     
     public void delete(String endpoint, Object... uriVariables) {
         try {
             log.debug("MailerLite DELETE request to: {}", endpoint);
-            getRestClient()
+            withConnection("DELETE", endpoint, () -> getRestClient()
                     .delete()
                     .uri(endpoint, uriVariables)
                     .retrieve()
-                    .toBodilessEntity();
+                    .toBodilessEntity());
         } catch (RestClientResponseException e) {
             log.error("MailerLite API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new ApiException("MailerLite", e.getStatusCode(), e.getMessage(), e);
+        } finally {
+            invalidateCache(endpoint);
+        }
+    }
+    
+    // Latency is tracked per endpoint class, so bulk imports are not measured against small lookups
+    private <T> T withConnection(String method, String endpoint, Supplier<T> call) {
+        return concurrencyLimiters.mailerLite().execute(AdaptiveConcurrencyLimiter.endpointClass(method, endpoint), call);
+    }
+    
+    // Synchronized: pipeline workers and phases call in at once, and all of them must see the one
+    // cache that invalidations go to
+    private synchronized ResponseCache getResponseCache() {
+        if (responseCache == null && migrationConfig.getCache().isEnabled()) {
+            responseCache = new ResponseCache(migrationConfig.getCache().getMaxEntries(), migrationConfig.getCache().getTtl());
         }
+        return responseCache;
+    }
+    
+    private void invalidateCache(String endpoint) {
+        ResponseCache cache = getResponseCache();
+        if (cache != null) {
+            cache.invalidate(endpoint);
+        }
+    }
+    
+    private String requestKey(String endpoint, String responseType, Object... uriVariables) {
+        return endpoint + Arrays.toString(uriVariables) + "->" + responseType;
     }
     
     public boolean testConnection() {
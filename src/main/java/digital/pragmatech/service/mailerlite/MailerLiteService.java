@@ -86,9 +86,9 @@ public class MailerLiteService {
                 subscriberId, groupId);
     }
     
-    public void bulkImportSubscribers(List<Subscriber> subscribers, String groupId) {
+    public String bulkImportSubscribers(List<Subscriber> subscribers, String groupId) {
         if (subscribers.isEmpty()) {
-            return;
+            return null;
         }
         
         List<Map<String, Object>> subscriberRequests = subscribers.stream()
@@ -96,18 +96,25 @@ public class MailerLiteService {
                 .collect(Collectors.toList());
         
         Map<String, Object> request = Map.of("subscribers", subscriberRequests);
+        Map<String, Object> response;
         
         if (groupId != null) {
-            Map<String, Object> response = apiClient.post("/groups/{groupId}/import-subscribers", request,
+            response = apiClient.post("/groups/{groupId}/import-subscribers", request,
                     new ParameterizedTypeReference<Map<String, Object>>() {}, groupId);
             
             log.info("Bulk import initiated for group {}: {}", groupId, response);
         } else {
-            Map<String, Object> response = apiClient.post("/import-subscribers", request,
+            response = apiClient.post("/import-subscribers", request,
                     new ParameterizedTypeReference<Map<String, Object>>() {});
             
             log.info("Bulk import initiated: {}", response);
         }
+        
+        // Import job id, if the API returned one
+        if (response != null && response.get("data") instanceof Map<?, ?> data && data.get("id") != null) {
+            return data.get("id").toString();
+        }
+        return null;
     }
     
     public Map<String, Object> createEcommerceShop(EcommerceShop shop) {
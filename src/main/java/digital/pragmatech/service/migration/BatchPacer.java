@@ -0,0 +1,28 @@
+package digital.pragmatech.service.migration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Spaces the subscriber batches of one migration at least interval apart. It is awaited by the
+// thread that hands batches out, the migration's own, so the pause holds up only that migration
+// and never one of the import workers all migrations share.
+final class BatchPacer {
+
+    private final long intervalNanos;
+    private long nextAt;
+    private boolean started;
+
+    BatchPacer(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+    }
+
+    synchronized void await() throws InterruptedException {
+        long now = System.nanoTime();
+        if (started && now - nextAt < 0) {
+            TimeUnit.NANOSECONDS.sleep(nextAt - now);
+            now = System.nanoTime();
+        }
+        started = true;
+        nextAt = now + intervalNanos;
+    }
+}
@@ -0,0 +1,111 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.service.storage.JsonLinesLog;
+import digital.pragmatech.service.storage.StagingStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// One journal file per migration under <storage.directory>/checkpoints. A file that still exists
+// belongs to a migration that has not completed. The members a migration has extracted so far are
+// staged next to it under <storage.directory>/staging/<migrationId> and share its lifetime.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckpointStore {
+
+    private static final String EXTENSION = ".jsonl";
+
+    private final MigrationConfig migrationConfig;
+    private final ObjectMapper objectMapper;
+
+    public MigrationCheckpoint create(String migrationId) {
+        if (!migrationConfig.getCheckpoint().isEnabled()) {
+            return MigrationCheckpoint.inMemory(migrationId);
+        }
+
+        MigrationCheckpoint checkpoint = new MigrationCheckpoint(migrationId, journal(migrationId));
+        checkpoint.started();
+        return checkpoint;
+    }
+
+    public boolean exists(String migrationId) {
+        return MigrationPaths.isValidId(migrationId) && Files.exists(journal(migrationId).getFile());
+    }
+
+    public Optional<MigrationCheckpoint> load(String migrationId) {
+        if (!MigrationPaths.isValidId(migrationId)) {
+            return Optional.empty();
+        }
+        JsonLinesLog journal = journal(migrationId);
+        if (!Files.exists(journal.getFile())) {
+            return Optional.empty();
+        }
+        return Optional.of(MigrationCheckpoint.replay(migrationId, journal));
+    }
+
+    // Ids of all migrations with a checkpoint, most recently updated first. Migrations that are
+    // still running have one as well.
+    public List<String> findAll() {
+        Path directory = directory();
+        if (!migrationConfig.getCheckpoint().isEnabled() || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(this::lastModified).reversed())
+                    .map(file -> file.getFileName().toString().replace(EXTENSION, ""))
+                    .filter(MigrationPaths::isValidId)
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to scan checkpoint directory {}", directory, e);
+            return List.of();
+        }
+    }
+
+    // Reopens the staged members of a resumed migration
+    public MigrationStaging openStaging(String migrationId) {
+        if (!migrationConfig.getStaging().isEnabled()) {
+            return MigrationStaging.disabled();
+        }
+        return new MigrationStaging(stagingDirectory(migrationId), objectMapper,
+                migrationConfig.getStaging().getSegmentSizeMb() * 1024 * 1024);
+    }
+
+    public void discard(String migrationId) {
+        journal(migrationId).delete();
+        StagingStore.deleteDirectory(stagingDirectory(migrationId));
+    }
+
+    private JsonLinesLog journal(String migrationId) {
+        return new JsonLinesLog(MigrationPaths.resolve(directory(), migrationId, EXTENSION), objectMapper);
+    }
+
+    private Path directory() {
+        return Path.of(migrationConfig.getStorage().getDirectory(), "checkpoints");
+    }
+
+    private Path stagingDirectory(String migrationId) {
+        return MigrationPaths.resolve(Path.of(migrationConfig.getStorage().getDirectory(), "staging"), migrationId, "");
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.exception.ApiException;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import digital.pragmatech.service.storage.JsonLinesLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Imports subscriber batches so that a few bad records do not take the whole batch down with them.
+// A batch MailerLite rejects for its content is split in half and both halves are retried, down to
+// single members, so isolating k bad records costs about 2·k·log2(batch size) extra requests while
+// everything else still goes in as large chunks. Members rejected on their own, and batches that
+// failed for reasons unrelated to their content (server errors, authentication, rate limits), end
+// up in the migration's dead-letter file under <storage.directory>/dead-letters. The file outlives
+// the migration and is re-driven in bulk by replay once the cause has been fixed.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeadLetterQueue {
+
+    private static final String EXTENSION = ".jsonl";
+
+    private final MigrationConfig migrationConfig;
+    private final ObjectMapper objectMapper;
+    private final MigrationProgressTracker progressTracker;
+    private final ConcurrentHashMap<String, JsonLinesLog> files = new ConcurrentHashMap<>();
+
+    // Returns the number of members that were dead-lettered instead of imported
+    public int importIsolatingFailures(MigrationRun run, List<MailchimpMember> batch,
+                                       Consumer<List<MailchimpMember>> importer) {
+        List<DeadLetter> rejected = new ArrayList<>();
+        bisect(run, batch, importer, rejected);
+        rejected.forEach(deadLetter -> file(run.migrationId()).append(deadLetter));
+        return rejected.size();
+    }
+
+    // Imports the dead letters of a migration that is no longer running again, in batches and with
+    // the same bisection. Only members rejected again stay in the file, which is replaced in one
+    // step, so a replay that is interrupted leaves the previous file intact; re-importing members
+    // that already made it is harmless, MailerLite imports update existing subscribers.
+    public synchronized ReplayResult replay(MigrationRun run, Consumer<List<MailchimpMember>> importer) {
+        String migrationId = run.migrationId();
+        List<DeadLetter> pending = list(migrationId);
+        if (pending.isEmpty()) {
+            return new ReplayResult(0, 0);
+        }
+        List<DeadLetter> rejected = new ArrayList<>();
+
+        int batchSize = Math.max(1, migrationConfig.getBatchSize());
+        List<MailchimpMember> members = pending.stream().map(DeadLetter::member).toList();
+        for (int i = 0; i < members.size(); i += batchSize) {
+            run.control().throwIfCancelled();
+            bisect(run, members.subList(i, Math.min(i + batchSize, members.size())), importer, rejected);
+        }
+
+        rewrite(migrationId, rejected);
+        log.info("Replayed {} dead letters of migration {}, {} rejected again", pending.size(), migrationId, rejected.size());
+        return new ReplayResult(pending.size() - rejected.size(), rejected.size());
+    }
+
+    // Reads without keeping the file open, so listing a migration that is not running leaves nothing behind
+    public List<DeadLetter> list(String migrationId) {
+        JsonLinesLog file = files.get(migrationId);
+        return (file != null ? file : new JsonLinesLog(path(migrationId), objectMapper)).readAll(DeadLetter.class);
+    }
+
+    // Releases the open file once the migration has stopped; the dead letters themselves are kept
+    public void close(String migrationId) {
+        JsonLinesLog file = files.remove(migrationId);
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private void bisect(MigrationRun run, List<MailchimpMember> batch, Consumer<List<MailchimpMember>> importer,
+                        List<DeadLetter> rejected) {
+        try {
+            importer.accept(batch);
+        } catch (RuntimeException e) {
+            // An import aborted because the migration is stopping is neither bisected nor dead-lettered
+            if (run.control().isCancelled() || Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+
+            if (batch.size() > 1 && isRejectedForContent(e)) {
+                log.info("Batch of {} subscribers rejected, retrying both halves: {}", batch.size(), e.getMessage());
+                int middle = batch.size() / 2;
+                bisect(run, batch.subList(0, middle), importer, rejected);
+                bisect(run, batch.subList(middle, batch.size()), importer, rejected);
+                return;
+            }
+
+            Instant failedAt = Instant.now();
+            batch.forEach(member -> rejected.add(new DeadLetter(member, e.getMessage(), failedAt)));
+            if (batch.size() == 1) {
+                log.warn("Subscriber {} rejected: {}", batch.get(0).getEmailAddress(), e.getMessage());
+                progressTracker.addError(run.migrationId(), "SUBSCRIBER_MIGRATION", "Subscriber",
+                        batch.get(0).getEmailAddress(), e.getMessage(), "SUBSCRIBER_IMPORT_FAILED", true);
+            } else {
+                log.error("Failed to migrate subscriber batch", e);
+                progressTracker.addError(run.migrationId(), "SUBSCRIBER_MIGRATION", "Batch",
+                        batch.get(0).getEmailAddress() + " (+" + (batch.size() - 1) + " more)",
+                        e.getMessage(), "BATCH_MIGRATION_FAILED", true);
+            }
+        }
+    }
+
+    // Client errors other than authentication, permissions and rate limiting point at the request
+    // itself, i.e. at one or more of the members in it
+    private boolean isRejectedForContent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException && apiException.getStatusCode() != null) {
+                int status = apiException.getStatusCode().value();
+                return apiException.getStatusCode().is4xxClientError()
+                        && !apiException.isAuthenticationError()
+                        && !apiException.isRateLimitError()
+                        && status != 403 && status != 408;
+            }
+        }
+        return false;
+    }
+
+    private void rewrite(String migrationId, List<DeadLetter> deadLetters) {
+        close(migrationId);
+        Path target = path(migrationId);
+        Path replacement = target.resolveSibling(migrationId + ".replay" + EXTENSION);
+        JsonLinesLog file = new JsonLinesLog(replacement, objectMapper);
+        try {
+            Files.deleteIfExists(replacement);
+            deadLetters.forEach(file::append);
+            file.close();
+            if (deadLetters.isEmpty()) {
+                Files.deleteIfExists(replacement);
+                Files.deleteIfExists(target);
+            } else {
+                Files.move(replacement, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rewrite dead letters of migration " + migrationId, e);
+        }
+    }
+
+    private JsonLinesLog file(String migrationId) {
+        return files.computeIfAbsent(migrationId, id -> new JsonLinesLog(path(id), objectMapper));
+    }
+
+    private Path path(String migrationId) {
+        return MigrationPaths.resolve(Path.of(migrationConfig.getStorage().getDirectory(), "dead-letters"),
+                migrationId, EXTENSION);
+    }
+
+    public record DeadLetter(MailchimpMember member, String error, Instant failedAt) {
+    }
+
+    public record ReplayResult(int replayed, int rejected) {
+    }
+}
@@ -0,0 +1,53 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.storage.JsonLinesLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One error file per migration under <storage.directory>/errors, holding every error the migration
+// reported in the order it was reported. The file outlives the migration, so its errors can still be
+// paged through after the migration has been dropped from memory or the application restarted; a
+// resumed migration appends to the file of its earlier run and numbers its errors on from there.
+// Each file is kept open for reading once used, so its offset index serves every later page.
+@Component
+@RequiredArgsConstructor
+public class ErrorStore {
+
+    private static final String EXTENSION = ".jsonl";
+
+    private final MigrationConfig migrationConfig;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, JsonLinesLog> files = new ConcurrentHashMap<>();
+
+    MigrationErrors open(String migrationId) {
+        return new MigrationErrors(migrationConfig.getErrors().getRecentLimit(),
+                files.computeIfAbsent(migrationId, id -> new JsonLinesLog(path(id), objectMapper)));
+    }
+
+    // Up to limit errors starting at error number offset, oldest first. Ids without an error file
+    // are not kept, so reading them leaves nothing behind.
+    public List<MigrationStatus.MigrationError> read(String migrationId, long offset, int limit) {
+        JsonLinesLog file = files.get(migrationId);
+        if (file == null) {
+            Path path = path(migrationId);
+            if (!Files.exists(path)) {
+                return List.of();
+            }
+            file = files.computeIfAbsent(migrationId, id -> new JsonLinesLog(path, objectMapper));
+        }
+        return file.read(MigrationStatus.MigrationError.class, offset, limit);
+    }
+
+    private Path path(String migrationId) {
+        return MigrationPaths.resolve(Path.of(migrationConfig.getStorage().getDirectory(), "errors"),
+                migrationId, EXTENSION);
+    }
+}
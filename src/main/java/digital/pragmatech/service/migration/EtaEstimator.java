@@ -0,0 +1,105 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Time remaining for one migration. Each running phase's throughput is smoothed exponentially over
+// the configured time constant, so a single slow or fast batch moves the estimate only a little,
+// and the phases running side by side each need remaining/throughput to finish. They also share
+// the MailerLite rate limit: the requests all of them still have to send cannot go out faster than
+// requests-per-minute allows, which bounds the estimate from below before throughput has been
+// observed and whenever the budget, not the phases themselves, is what holds the migration up.
+// Not thread-safe; MigrationProgress calls it under its lock.
+final class EtaEstimator {
+
+    private static final long MIN_SAMPLE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double smoothingSeconds;
+    private final double mailerLiteRequestsPerSecond;
+    private final int batchSize;
+    private final Map<MigrationStatus.MigrationPhase, Throughput> throughputs = new EnumMap<>(MigrationStatus.MigrationPhase.class);
+
+    EtaEstimator(MigrationConfig migrationConfig) {
+        this.smoothingSeconds = Math.max(1, migrationConfig.getProgress().getThroughputSmoothing().toMillis() / 1000.0);
+        this.mailerLiteRequestsPerSecond = Math.max(1, migrationConfig.getRateLimit().getMailerlite().getRequestsPerMinute()) / 60.0;
+        this.batchSize = Math.max(1, migrationConfig.getBatchSize());
+    }
+
+    // Seconds until all phases are done, or 0 if nothing is known to remain
+    long estimateSeconds(Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases, long nowNanos) {
+        double slowestPhase = 0;
+        double remainingRequests = 0;
+
+        for (Map.Entry<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> entry : phases.entrySet()) {
+            MigrationStatus.PhaseProgress phase = entry.getValue();
+            if (phase.getState() != MigrationStatus.MigrationState.IN_PROGRESS) {
+                continue;
+            }
+
+            Throughput throughput = throughputs.computeIfAbsent(entry.getKey(), key -> new Throughput());
+            double itemsPerSecond = throughput.sample(phase.getProcessedItems(), nowNanos);
+            long remaining = Math.max(0, phase.getTotalItems() - phase.getProcessedItems());
+            if (remaining == 0) {
+                continue;
+            }
+
+            if (itemsPerSecond > 0) {
+                slowestPhase = Math.max(slowestPhase, remaining / itemsPerSecond);
+            }
+            remainingRequests += remaining * mailerLiteRequestsPerItem(entry.getKey());
+        }
+
+        return (long) Math.ceil(Math.max(slowestPhase, remainingRequests / mailerLiteRequestsPerSecond));
+    }
+
+    // MailerLite requests a phase sends per item; group assignments per member are left out, as a
+    // member's tags are not known before the member is fetched
+    private double mailerLiteRequestsPerItem(MigrationStatus.MigrationPhase phase) {
+        return switch (phase) {
+            case TAG_GROUP_MIGRATION -> 1.0;
+            case SUBSCRIBER_MIGRATION -> 1.0 / batchSize;
+            default -> 0.0;
+        };
+    }
+
+    private final class Throughput {
+
+        private long lastNanos = -1;
+        private long lastProcessed;
+        private double itemsPerSecond;
+        private boolean observed;
+
+        // Samples closer together than a second are folded into the next one, so bursts of
+        // snapshots do not turn a single batch into a spike
+        private double sample(long processed, long nowNanos) {
+            if (lastNanos < 0) {
+                lastNanos = nowNanos;
+                lastProcessed = processed;
+                return itemsPerSecond;
+            }
+
+            long elapsedNanos = nowNanos - lastNanos;
+            if (elapsedNanos < MIN_SAMPLE_INTERVAL_NANOS) {
+                return itemsPerSecond;
+            }
+
+            double elapsedSeconds = elapsedNanos / 1e9;
+            double rate = Math.max(0, processed - lastProcessed) / elapsedSeconds;
+            if (observed) {
+                // Weighted by elapsed time, so irregular sampling decays the old rate consistently
+                double alpha = 1 - Math.exp(-elapsedSeconds / smoothingSeconds);
+                itemsPerSecond += alpha * (rate - itemsPerSecond);
+            } else if (rate > 0) {
+                itemsPerSecond = rate;
+                observed = true;
+            }
+
+            lastNanos = nowNanos;
+            lastProcessed = processed;
+            return itemsPerSecond;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Import workers shared by all running migrations. Every migration queues its batches separately
+// and workers serve the queues round-robin, one batch per turn, so a migration with a huge backlog
+// gets the same share of workers as a small one instead of whatever it managed to enqueue first.
+@Slf4j
+@Component
+public class FairBatchScheduler {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Map<String, Deque<Runnable>> queues = new HashMap<>();
+    private final Deque<String> turns = new ArrayDeque<>();
+    private final Map<Thread, String> running = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean shutdown;
+
+    public FairBatchScheduler(MigrationConfig migrationConfig) {
+        int workerCount = Math.max(1, migrationConfig.getPipeline().getImportConcurrency());
+        Thread.Builder builder = Thread.ofPlatform().name("batch-import-", 1).daemon(true);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(builder.start(this::work));
+        }
+    }
+
+    public void submit(String migrationId, Runnable task) {
+        lock.lock();
+        try {
+            Deque<Runnable> queue = queues.computeIfAbsent(migrationId, id -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                turns.addLast(migrationId);
+            }
+            queue.addLast(task);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Interrupts the batches of this migration that are currently running; queued ones still run
+    // and are expected to notice the migration has stopped
+    public void interrupt(String migrationId) {
+        lock.lock();
+        try {
+            running.forEach((thread, owner) -> {
+                if (owner.equals(migrationId)) {
+                    thread.interrupt();
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount(String migrationId) {
+        lock.lock();
+        try {
+            Deque<Runnable> queue = queues.get(migrationId);
+            return queue != null ? queue.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (!shutdown) {
+            Runnable task = next();
+            if (task == null) {
+                continue;
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Batch task failed", e);
+            } finally {
+                lock.lock();
+                try {
+                    running.remove(Thread.currentThread());
+                } finally {
+                    lock.unlock();
+                }
+                // No interrupt can target this thread any more; drop one aimed at the finished task
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private Runnable next() {
+        lock.lock();
+        try {
+            while (turns.isEmpty()) {
+                workAvailable.await();
+            }
+
+            String migrationId = turns.pollFirst();
+            Deque<Runnable> queue = queues.get(migrationId);
+            Runnable task = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(migrationId);
+            } else {
+                turns.addLast(migrationId);
+            }
+
+            running.put(Thread.currentThread(), migrationId);
+            return task;
+        } catch (InterruptedException e) {
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.storage.JsonLinesLog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Resumable state of one migration. Every acknowledged step is applied in memory and appended to
+// the migration's journal as a small event; after a restart the journal is replayed to rebuild the
+// state. Without a journal (checkpointing disabled) the state only lives as long as the run.
+public class MigrationCheckpoint {
+
+    private final String migrationId;
+    private final JsonLinesLog journal;
+
+    private final Set<MigrationStatus.MigrationPhase> completedPhases = EnumSet.noneOf(MigrationStatus.MigrationPhase.class);
+    private final Map<String, String> tagToGroupMapping = new HashMap<>();
+    private final Map<String, Integer> listOffsets = new HashMap<>();
+    private final Set<String> completedLists = new HashSet<>();
+    private final List<String> importIds = new ArrayList<>();
+    private Instant updatedAt;
+
+    MigrationCheckpoint(String migrationId, JsonLinesLog journal) {
+        this.migrationId = migrationId;
+        this.journal = journal;
+    }
+
+    public static MigrationCheckpoint inMemory(String migrationId) {
+        return new MigrationCheckpoint(migrationId, null);
+    }
+
+    static MigrationCheckpoint replay(String migrationId, JsonLinesLog journal) {
+        MigrationCheckpoint checkpoint = new MigrationCheckpoint(migrationId, journal);
+        for (Event event : journal.readAll(Event.class)) {
+            checkpoint.apply(event);
+        }
+        return checkpoint;
+    }
+
+    public void started() {
+        record(new Event(EventType.STARTED, null, null, null, null, null, null, Instant.now()));
+    }
+
+    public void groupCreated(String tag, String groupId) {
+        record(new Event(EventType.GROUP_CREATED, null, null, null, tag, groupId, null, Instant.now()));
+    }
+
+    public void phaseCompleted(MigrationStatus.MigrationPhase phase) {
+        record(new Event(EventType.PHASE_COMPLETED, phase, null, null, null, null, null, Instant.now()));
+    }
+
+    // listId is the key of the subscriber lane; offset is the position in the lane up to which every
+    // member has been handled
+    public void batchAcknowledged(String listId, int offset) {
+        record(new Event(EventType.BATCH_ACKNOWLEDGED, null, listId, offset, null, null, null, Instant.now()));
+    }
+
+    public void listCompleted(String listId) {
+        record(new Event(EventType.LIST_COMPLETED, null, listId, null, null, null, null, Instant.now()));
+    }
+
+    public void importSubmitted(String importId) {
+        record(new Event(EventType.IMPORT_SUBMITTED, null, null, null, null, null, importId, Instant.now()));
+    }
+
+    public String getMigrationId() {
+        return migrationId;
+    }
+
+    public synchronized boolean isPhaseCompleted(MigrationStatus.MigrationPhase phase) {
+        return completedPhases.contains(phase);
+    }
+
+    public synchronized Map<String, String> getTagToGroupMapping() {
+        return new HashMap<>(tagToGroupMapping);
+    }
+
+    public synchronized int offsetFor(String listId) {
+        return listOffsets.getOrDefault(listId, 0);
+    }
+
+    public synchronized boolean isListCompleted(String listId) {
+        return completedLists.contains(listId);
+    }
+
+    public synchronized List<String> getImportIds() {
+        return new ArrayList<>(importIds);
+    }
+
+    public synchronized Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Called once the migration has completed; there is nothing left to resume
+    public void discard() {
+        if (journal != null) {
+            journal.delete();
+        }
+    }
+
+    private synchronized void record(Event event) {
+        apply(event);
+        if (journal != null) {
+            journal.append(event);
+        }
+    }
+
+    private void apply(Event event) {
+        switch (event.type()) {
+            case GROUP_CREATED -> tagToGroupMapping.put(event.tag(), event.groupId());
+            case PHASE_COMPLETED -> completedPhases.add(event.phase());
+            case BATCH_ACKNOWLEDGED -> listOffsets.merge(event.listId(), event.offset(), Math::max);
+            case LIST_COMPLETED -> completedLists.add(event.listId());
+            case IMPORT_SUBMITTED -> importIds.add(event.importId());
+            case STARTED -> {
+            }
+        }
+        updatedAt = event.timestamp();
+    }
+
+    public enum EventType {
+        STARTED,
+        GROUP_CREATED,
+        PHASE_COMPLETED,
+        BATCH_ACKNOWLEDGED,
+        LIST_COMPLETED,
+        IMPORT_SUBMITTED
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Event(EventType type, MigrationStatus.MigrationPhase phase, String listId, Integer offset,
+                        String tag, String groupId, String importId, Instant timestamp) {
+    }
+}
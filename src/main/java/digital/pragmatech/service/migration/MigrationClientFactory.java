@@ -0,0 +1,64 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.ApiConfiguration;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.request.ApiKeysRequest;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
+import digital.pragmatech.service.mailchimp.MailchimpApiClient;
+import digital.pragmatech.service.mailchimp.MailchimpService;
+import digital.pragmatech.service.mailerlite.MailerLiteApiClient;
+import digital.pragmatech.service.mailerlite.MailerLiteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+// Builds API services for a migration. Without explicit credentials the application-wide services
+// (configured through the UI or environment) are used; with credentials the migration gets its own
+// clients, so response caches and coalescing never mix data from different accounts. The adaptive
+// concurrency limiters stay shared and divide the instance's API budget between migrations.
+// Own clients also get their own source snapshot, which is dropped when the migration ends.
+@Component
+@RequiredArgsConstructor
+public class MigrationClientFactory {
+
+    private final RestClient.Builder restClientBuilder;
+    private final ApiConfiguration apiConfiguration;
+    private final MigrationConfig migrationConfig;
+    private final ApiConcurrencyLimiters concurrencyLimiters;
+    private final MailchimpService mailchimpService;
+    private final MailerLiteService mailerLiteService;
+    private final ObjectMapper objectMapper;
+
+    public MailchimpService mailchimp(ApiKeysRequest credentials) {
+        if (credentials == null) {
+            return mailchimpService;
+        }
+
+        ApiConfiguration accountConfiguration = new ApiConfiguration();
+        accountConfiguration.getMailchimp().setBaseUrl(apiConfiguration.getMailchimp().getBaseUrl());
+        accountConfiguration.getMailchimp().setApiKey(credentials.getMailchimpApiKey());
+
+        return new MailchimpService(new MailchimpApiClient(restClientBuilder.clone(), accountConfiguration,
+                migrationConfig, concurrencyLimiters), migrationConfig, objectMapper);
+    }
+
+    public void release(MigrationRun run) {
+        if (run.mailchimp() != mailchimpService) {
+            run.mailchimp().discardSnapshot();
+        }
+    }
+    
+    public MailerLiteService mailerLite(ApiKeysRequest credentials) {
+        if (credentials == null) {
+            return mailerLiteService;
+        }
+
+        ApiConfiguration accountConfiguration = new ApiConfiguration();
+        accountConfiguration.getMailerlite().setBaseUrl(apiConfiguration.getMailerlite().getBaseUrl());
+        accountConfiguration.getMailerlite().setApiToken(credentials.getMailerLiteApiToken());
+
+        return new MailerLiteService(new MailerLiteApiClient(restClientBuilder.clone(), accountConfiguration,
+                migrationConfig, concurrencyLimiters));
+    }
+}
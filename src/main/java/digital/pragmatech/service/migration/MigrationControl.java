@@ -0,0 +1,109 @@
+package digital.pragmatech.service.migration;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cooperative gate the migration loop passes before each unit of work (a page fetch, a batch,
+// a group). Pausing never interrupts work that is already running: in-flight imports finish and
+// hand back their API slots, and the loop stops picking up anything new until resumed.
+// Cancelling additionally interrupts the attached threads (the migration thread and the threads of
+// phases running alongside it) so blocking waits and HTTP exchanges abort instead of running to
+// completion.
+public class MigrationControl {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition resumed = lock.newCondition();
+    private boolean paused;
+    private boolean cancelled;
+    private final Set<Thread> workers = new HashSet<>();
+
+    public void attach(Thread thread) {
+        lock.lock();
+        try {
+            workers.add(thread);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // After detaching, cancel() no longer interrupts the thread, which may go back to its pool
+    public void detach(Thread thread) {
+        lock.lock();
+        try {
+            workers.remove(thread);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void pause() {
+        lock.lock();
+        try {
+            paused = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void resume() {
+        lock.lock();
+        try {
+            paused = false;
+            resumed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            resumed.signalAll();
+            workers.forEach(Thread::interrupt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isPaused() {
+        lock.lock();
+        try {
+            return paused;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Migration cancelled");
+        }
+    }
+
+    public void awaitRunning() throws InterruptedException {
+        lock.lock();
+        try {
+            while (paused && !cancelled) {
+                resumed.await();
+            }
+            if (cancelled) {
+                throw new CancellationException("Migration cancelled");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.storage.JsonLinesLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Errors of one migration, bounded however many of them a systemic problem produces. Only the most
+// recent ones are held, in a ring buffer that snapshots copy; every error is counted per phase,
+// error code and entity, and written in full to the migration's error file, which is where the
+// error API pages through all of them. Errors are numbered by their line in that file: a resumed
+// migration's errors continue after those of its earlier run, whose ones are not held or summarized.
+@Slf4j
+final class MigrationErrors {
+
+    private final MigrationStatus.MigrationError[] recent;
+    private final JsonLinesLog file;
+    private final ConcurrentHashMap<Key, Aggregate> aggregates = new ConcurrentHashMap<>();
+    // Errors already in the file when this run started
+    private final long earlier;
+    private long count;
+
+    MigrationErrors(int recentLimit, JsonLinesLog file) {
+        this.recent = new MigrationStatus.MigrationError[Math.max(1, recentLimit)];
+        this.file = file;
+        this.earlier = earlierErrors(file);
+        this.count = earlier;
+    }
+
+    void record(MigrationStatus.MigrationError error) {
+        aggregates.computeIfAbsent(new Key(error.getPhase(), error.getErrorCode(), error.getEntity()), key -> new Aggregate())
+                .record(error);
+        synchronized (this) {
+            recent[(int) (count % recent.length)] = error;
+            count++;
+        }
+
+        // Losing the details of an error must not fail the migration that reported it
+        try {
+            file.append(error);
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to write migration error to {}", file.getFile(), e);
+        }
+    }
+
+    // The recent errors, oldest first, together with the number of errors recorded up to the last
+    // of them, so a reader can tell which errors are new since a previous window
+    synchronized Window window() {
+        int size = (int) Math.min(count - earlier, recent.length);
+        List<MigrationStatus.MigrationError> errors = new ArrayList<>(size);
+        for (long i = count - size; i < count; i++) {
+            errors.add(recent[(int) (i % recent.length)]);
+        }
+        return new Window(errors, count);
+    }
+
+    // Most frequent first
+    List<MigrationStatus.ErrorSummary> summary() {
+        List<MigrationStatus.ErrorSummary> summary = new ArrayList<>(aggregates.size());
+        aggregates.forEach((key, aggregate) -> {
+            // An aggregate is visible a moment before its first error is counted in it
+            MigrationStatus.MigrationError last = aggregate.last;
+            if (last != null) {
+                summary.add(aggregate.summary(key, last));
+            }
+        });
+        summary.sort(Comparator.comparingLong(MigrationStatus.ErrorSummary::getCount).reversed());
+        return summary;
+    }
+
+    void close() {
+        file.close();
+    }
+
+    private static long earlierErrors(JsonLinesLog file) {
+        try {
+            return file.size();
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to count earlier migration errors in {}", file.getFile(), e);
+            return 0;
+        }
+    }
+
+    record Window(List<MigrationStatus.MigrationError> errors, long count) {
+    }
+
+    private record Key(String phase, String errorCode, String entity) {
+    }
+
+    private static final class Aggregate {
+
+        private final LongAdder count = new LongAdder();
+        private volatile MigrationStatus.MigrationError last;
+
+        private void record(MigrationStatus.MigrationError error) {
+            count.increment();
+            last = error;
+        }
+
+        private MigrationStatus.ErrorSummary summary(Key key, MigrationStatus.MigrationError lastError) {
+            return MigrationStatus.ErrorSummary.builder()
+                    .phase(key.phase())
+                    .errorCode(key.errorCode())
+                    .entity(key.entity())
+                    .count(count.sum())
+                    .lastErrorMessage(lastError.getErrorMessage())
+                    .lastOccurredAt(lastError.getTimestamp())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.storage.StagingStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Every migration run, recorded at each state and phase transition into an append-only store under
+// <storage.directory>/history that survives restarts. Entries are never rewritten; a run's latest
+// entry is its current or final state. Two indexes point into the store by entry number: runs
+// ordered by start time, each with its latest entry, and the entries of each migration id. A page
+// therefore reads just the entries on it, however long the history has grown. The indexes live in
+// memory and are rebuilt from the store in one pass on startup.
+// A resumed migration keeps its id but starts a new run.
+@Slf4j
+@Component
+public class MigrationHistory {
+
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final Comparator<Run> BY_START = Comparator.comparing(Run::startedAt,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final StagingStore<MigrationHistoryEntry> store;
+    private final List<Run> runsByStart = new ArrayList<>();
+    private final Map<RunKey, Run> runs = new HashMap<>();
+    private final Map<String, List<Long>> entriesById = new HashMap<>();
+
+    public MigrationHistory(MigrationConfig migrationConfig, ObjectMapper objectMapper) {
+        this(new StagingStore<>(Path.of(migrationConfig.getStorage().getDirectory(), "history"), objectMapper,
+                MigrationHistoryEntry.class, SEGMENT_SIZE));
+    }
+
+    MigrationHistory(StagingStore<MigrationHistoryEntry> store) {
+        this.store = store;
+        try {
+            long number = 0;
+            for (Iterator<MigrationHistoryEntry> entries = store.reader(0); entries.hasNext(); number++) {
+                index(entries.next(), number);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to read migration history, recording new runs only", e);
+        }
+    }
+
+    // Failing to record is logged rather than passed on, so it never fails the migration itself
+    public synchronized void record(MigrationStatus status) {
+        MigrationHistoryEntry entry = MigrationHistoryEntry.of(status, LocalDateTime.now());
+        try {
+            long number = store.size();
+            store.append(List.of(entry));
+            index(entry, number);
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to record migration {} in history", status.getId(), e);
+        }
+    }
+
+    // Latest entry of each run, most recently started first
+    public synchronized PageResponse<MigrationHistoryEntry> runs(int page, int size) {
+        return page(runsByStart.size(), page, size, position -> runsByStart.get(position).latestEntry);
+    }
+
+    // Every entry recorded for the migration id, across its runs, most recent first
+    public synchronized PageResponse<MigrationHistoryEntry> entries(String migrationId, int page, int size) {
+        List<Long> numbers = entriesById.getOrDefault(migrationId, List.of());
+        return page(numbers.size(), page, size, numbers::get);
+    }
+
+    public synchronized boolean contains(String migrationId) {
+        return entriesById.containsKey(migrationId);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        store.close();
+    }
+
+    private void index(MigrationHistoryEntry entry, long number) {
+        entriesById.computeIfAbsent(entry.getMigrationId(), id -> new ArrayList<>()).add(number);
+
+        RunKey key = new RunKey(entry.getMigrationId(), entry.getStartedAt());
+        Run run = runs.get(key);
+        if (run != null) {
+            run.latestEntry = number;
+            return;
+        }
+
+        run = new Run(key, number);
+        runs.put(key, run);
+        // Runs are almost always recorded in the order they start, which makes this an append
+        int position = runsByStart.size();
+        while (position > 0 && BY_START.compare(runsByStart.get(position - 1), run) > 0) {
+            position--;
+        }
+        runsByStart.add(position, run);
+    }
+
+    // Positions count from the oldest, pages from the newest
+    private PageResponse<MigrationHistoryEntry> page(int total, int page, int size, PositionIndex index) {
+        long newest = total - 1 - (long) page * size;
+        List<MigrationHistoryEntry> content = new ArrayList<>();
+        for (long position = newest; position > newest - size && position >= 0; position--) {
+            List<MigrationHistoryEntry> read = store.read(index.entryAt((int) position), 1);
+            if (!read.isEmpty()) {
+                content.add(read.get(0));
+            }
+        }
+        return new PageResponse<>(content, page, size, newest - size >= 0);
+    }
+
+    @FunctionalInterface
+    private interface PositionIndex {
+        long entryAt(int position);
+    }
+
+    private record RunKey(String migrationId, LocalDateTime startedAt) {
+    }
+
+    private static final class Run {
+
+        private final RunKey key;
+        private long latestEntry;
+
+        private Run(RunKey key, long latestEntry) {
+            this.key = key;
+            this.latestEntry = latestEntry;
+        }
+
+        private LocalDateTime startedAt() {
+            return key.startedAt();
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package digital.pragmatech.service.migration;
 
 import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.request.ApiKeysRequest;
+import digital.pragmatech.exception.MigrationException;
 import digital.pragmatech.model.common.*;
 import digital.pragmatech.model.mailchimp.MailchimpList;
 import digital.pragmatech.model.mailchimp.MailchimpMember;
 import digital.pragmatech.model.mailerlite.MailerLiteGroup;
-import digital.pragmatech.service.mailchimp.MailchimpService;
-import digital.pragmatech.service.mailerlite.MailerLiteService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,90 +26,296 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MigrationOrchestrator {
     
-    private final MailchimpService mailchimpService;
-    private final MailerLiteService mailerLiteService;
+    // Rate limiting: subscriber batches of one migration are imported at most once per interval
+    private static final Duration BATCH_INTERVAL = Duration.ofSeconds(1);
+    
+    private final MigrationClientFactory clientFactory;
     private final MigrationProgressTracker progressTracker;
     private final MigrationConfig migrationConfig;
+    private final SubscriberPipeline subscriberPipeline;
+    private final CheckpointStore checkpointStore;
+    private final MigrationRegistry registry;
+    private final DeadLetterQueue deadLetterQueue;
+    
+    // Migrations run for hours, so they get their own threads instead of occupying the shared task
+    // executor; their number is bounded by max-concurrent-migrations
+    private final ExecutorService migrationExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("migration-", 1).factory());
     
-    @Async
-    public CompletableFuture<String> startMigration() {
+    // Registers the migration and returns its id right away; the migration itself runs detached and
+    // is followed through the status API. credentials may be null to migrate the account configured
+    // for the whole application.
+    public String startMigration(ApiKeysRequest credentials) {
         String migrationId = UUID.randomUUID().toString();
         log.info("Starting migration with ID: {}", migrationId);
         
+        return launch(newRun(migrationId, credentials, checkpointStore.create(migrationId)));
+    }
+    
+    public String resumeFromCheckpoint(String migrationId, ApiKeysRequest credentials) {
+        MigrationCheckpoint checkpoint = checkpointStore.load(migrationId)
+                .orElseThrow(() -> new MigrationException("CHECKPOINT_NOT_FOUND", "No checkpoint found for migration " + migrationId));
+        
+        log.info("Resuming migration {} from checkpoint of {}", migrationId, checkpoint.getUpdatedAt());
+        return launch(newRun(migrationId, credentials, checkpoint));
+    }
+    
+    public Optional<String> findResumableMigration() {
+        return checkpointStore.findAll().stream()
+                .filter(migrationId -> registry.find(migrationId).isEmpty())
+                .findFirst();
+    }
+    
+    public void discardCheckpoint(String migrationId) {
+        checkpointStore.discard(migrationId);
+    }
+    
+    // Ids from requests name files on disk, so only migrations that are tracked, recorded in the
+    // history or have a checkpoint are accepted
+    public boolean isKnownMigration(String migrationId) {
+        return MigrationPaths.isValidId(migrationId)
+                && (progressTracker.isKnown(migrationId) || checkpointStore.exists(migrationId));
+    }
+    
+    public List<DeadLetterQueue.DeadLetter> getDeadLetters(String migrationId) {
+        requireKnown(migrationId);
+        return deadLetterQueue.list(migrationId);
+    }
+    
+    // Imports the members a migration could not import again, e.g. after fixing what MailerLite
+    // rejected them for. Members are imported as they were captured; groups are matched by name
+    // against the groups that exist in MailerLite by now.
+    public DeadLetterQueue.ReplayResult replayDeadLetters(String migrationId, ApiKeysRequest credentials) {
+        requireKnown(migrationId);
+        if (registry.find(migrationId).isPresent()) {
+            throw new MigrationException("MIGRATION_IN_PROGRESS", "Dead letters can only be replayed once the migration has stopped");
+        }
+        
+        MigrationRun run = new MigrationRun(migrationId, clientFactory.mailchimp(credentials), clientFactory.mailerLite(credentials),
+                MigrationCheckpoint.inMemory(migrationId), new MigrationControl(), MigrationStaging.disabled());
+        TagGroups tagGroups = new TagGroups();
+        run.mailerLite().getAllGroups().forEach(group -> tagGroups.created(group.getName(), group.getId()));
+        tagGroups.complete();
+        
+        BatchPacer pacer = new BatchPacer(BATCH_INTERVAL);
         try {
-            progressTracker.initializeMigration(migrationId);
+            return deadLetterQueue.replay(run, members -> prepareBatch(members, tagGroups, run, pacer).accept(members));
+        } finally {
+            clientFactory.release(run);
+        }
+    }
+    
+    public void pauseMigration(String migrationId) {
+        registry.find(migrationId).ifPresent(run -> run.control().pause());
+        progressTracker.pauseMigration(migrationId);
+    }
+    
+    public void resumeMigration(String migrationId) {
+        registry.find(migrationId).ifPresent(run -> run.control().resume());
+        progressTracker.resumeMigration(migrationId);
+    }
+    
+    public void cancelMigration(String migrationId) {
+        registry.find(migrationId).ifPresent(run -> run.control().cancel());
+        progressTracker.failMigration(migrationId, "Migration cancelled by user");
+    }
+    
+    private void requireKnown(String migrationId) {
+        if (!isKnownMigration(migrationId)) {
+            throw new MigrationException("NO_MIGRATION", "No migration found");
+        }
+    }
+    
+    private MigrationRun newRun(String migrationId, ApiKeysRequest credentials, MigrationCheckpoint checkpoint) {
+        return new MigrationRun(migrationId, clientFactory.mailchimp(credentials), clientFactory.mailerLite(credentials),
+                checkpoint, new MigrationControl(), checkpointStore.openStaging(migrationId));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Cancelled migrations keep their checkpoint and can be resumed after the restart
+        registry.getRunning().forEach(run -> run.control().cancel());
+        migrationExecutor.shutdown();
+    }
+    
+    // Registered before the job is submitted, so the migration is visible to status, capacity
+    // checks and cancel from the moment its id is handed out
+    private synchronized String launch(MigrationRun run) {
+        if (progressTracker.isAtMigrationCapacity()) {
+            run.checkpoint().close();
+            run.staging().close();
+            throw new MigrationException("MIGRATION_IN_PROGRESS", "Migration is already in progress");
+        }
+        
+        registry.register(run);
+        progressTracker.initializeMigration(run.migrationId());
+        try {
+            migrationExecutor.execute(() -> runMigration(run));
+        } catch (RejectedExecutionException e) {
+            registry.unregister(run);
+            run.checkpoint().close();
+            run.staging().close();
+            progressTracker.failMigration(run.migrationId(), "Migration could not be started: " + e.getMessage());
+            throw new MigrationException("MIGRATION_START_FAILED", "Migration could not be started", e);
+        }
+        return run.migrationId();
+    }
+    
+    private void runMigration(MigrationRun run) {
+        String migrationId = run.migrationId();
+        MigrationCheckpoint checkpoint = run.checkpoint();
+        MigrationControl control = run.control();
+        control.attach(Thread.currentThread());
+        
+        try {
+            // Groups created before an interruption are known up front and not created again
+            TagGroups tagGroups = new TagGroups();
+            checkpoint.getTagToGroupMapping().forEach(tagGroups::created);
+            if (checkpoint.isPhaseCompleted(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION)) {
+                tagGroups.complete();
+            }
             
-            // Phase 1: Tag/Group Migration
-            progressTracker.updatePhase(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
-            Map<String, String> tagToGroupMapping = migrateTagsToGroups();
+            MigrationTotals totals = countTotals(run);
             
-            // Phase 2: E-commerce Setup
-            progressTracker.updatePhase(MigrationStatus.MigrationPhase.ECOMMERCE_SETUP);
-            migrateEcommerceData();
+            // E-commerce setup does not need groups, and subscribers only wait for the groups of
+            // their own tags, so the first three phases run side by side
+            new PhaseGraph()
+                    .add(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION,
+                            () -> runPhase(run, MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, () -> migrateTagsToGroups(run, tagGroups, totals)))
+                    .add(MigrationStatus.MigrationPhase.ECOMMERCE_SETUP,
+                            () -> runPhase(run, MigrationStatus.MigrationPhase.ECOMMERCE_SETUP, () -> migrateEcommerceData(run)))
+                    .add(MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                            () -> runPhase(run, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION, () -> migrateSubscribers(tagGroups, run, totals)))
+                    // Campaign guidance (manual) once everything else is in place
+                    .add(MigrationStatus.MigrationPhase.CAMPAIGN_MIGRATION,
+                            () -> runPhase(run, MigrationStatus.MigrationPhase.CAMPAIGN_MIGRATION, () -> generateCampaignMigrationGuide(migrationId)),
+                            MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION,
+                            MigrationStatus.MigrationPhase.ECOMMERCE_SETUP,
+                            MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION)
+                    .run(migrationId, control);
             
-            // Phase 3: Subscriber Migration
-            progressTracker.updatePhase(MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION);
-            migrateSubscribers(tagToGroupMapping);
+            progressTracker.completeMigration(migrationId);
+            checkpoint.discard();
+            run.staging().delete();
+            // The next migration of this account should see the source as it is by then
+            run.mailchimp().discardSnapshot();
+            log.info("Migration {} completed successfully", migrationId);
             
-            // Phase 4: Campaign Migration (Manual guidance)
-            progressTracker.updatePhase(MigrationStatus.MigrationPhase.CAMPAIGN_MIGRATION);
-            generateCampaignMigrationGuide();
+        } catch (Exception e) {
+            // Everything acknowledged so far is in the journal, so a cancelled migration can be resumed too
+            checkpoint.close();
+            run.staging().close();
             
-            progressTracker.completeMigration();
-            log.info("Migration {} completed successfully", migrationId);
+            if (control.isCancelled()) {
+                log.info("Migration {} cancelled", migrationId);
+                return;
+            }
             
-            return CompletableFuture.completedFuture(migrationId);
+            log.error("Migration {} failed", migrationId, e);
+            progressTracker.failMigration(migrationId, "Migration failed: " + e.getMessage());
+        } finally {
+            control.detach(Thread.currentThread());
+            registry.unregister(run);
+            deadLetterQueue.close(migrationId);
+            clientFactory.release(run);
+        }
+    }
+    
+    // Totals are added before any phase starts, so progress percentages do not jump as lists are
+    // reached. Without them, e.g. if Mailchimp could not be read, totals are discovered while migrating.
+    private MigrationTotals countTotals(MigrationRun run) {
+        String migrationId = run.migrationId();
+        try {
+            MigrationTotals totals = MigrationTotals.count(run, run.mailchimp().getAllLists(), migrationConfig.getLanes());
+            if (totals.tags() != null) {
+                progressTracker.addTotal(migrationId, MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, totals.tags());
+            }
+            progressTracker.addTotal(migrationId, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION, (int) totals.subscribers());
             
+            long plannedBatches = totals.plannedBatches(migrationConfig.getBatchSize());
+            progressTracker.setMetric(migrationId, "planned_batches", plannedBatches);
+            log.info("Migration {} has {} subscribers in {} batches and {} tags to migrate",
+                    migrationId, totals.subscribers(), plannedBatches, totals.tags() != null ? totals.tags() : "unknown");
+            return totals;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.control().throwIfCancelled();
+            throw new MigrationException("Migration interrupted while counting totals", e);
         } catch (Exception e) {
-            log.error("Migration {} failed", migrationId, e);
-            progressTracker.failMigration("Migration failed: " + e.getMessage());
-            return CompletableFuture.failedFuture(e);
+            throwIfStopped(run.control(), e);
+            log.warn("Could not count totals of migration {} up front: {}", migrationId, e.getMessage());
+            return MigrationTotals.unknown();
         }
     }
     
-    private Map<String, String> migrateTagsToGroups() {
+    private void runPhase(MigrationRun run, MigrationStatus.MigrationPhase phase, Runnable work) {
+        progressTracker.updatePhase(run.migrationId(), phase);
+        if (run.checkpoint().isPhaseCompleted(phase)) {
+            log.info("Phase {} already completed according to checkpoint", phase);
+        } else {
+            awaitRunning(run.control());
+            work.run();
+            run.checkpoint().phaseCompleted(phase);
+        }
+        progressTracker.completePhase(run.migrationId(), phase);
+    }
+    
+    private void migrateTagsToGroups(MigrationRun run, TagGroups tagGroups, MigrationTotals totals) {
+        MigrationCheckpoint checkpoint = run.checkpoint();
         log.info("Starting tag to group migration");
-        Map<String, String> tagToGroupMapping = new HashMap<>();
+        // Groups created before an interruption are kept and not created again
+        Map<String, String> tagToGroupMapping = checkpoint.getTagToGroupMapping();
         
         try {
-            List<MailchimpList> lists = mailchimpService.getAllLists();
+            List<MailchimpList> lists = run.mailchimp().getAllLists();
             Set<String> allTags = new HashSet<>();
             
             // Collect all unique tags from all lists
             for (MailchimpList list : lists) {
-                List<String> listTags = mailchimpService.getAllTags(list.getId());
+                List<String> listTags = run.mailchimp().getAllTags(list.getId());
                 allTags.addAll(listTags);
             }
             
             // Clean and normalize tags
             Set<String> cleanedTags = allTags.stream()
-                    .map(this::cleanTagName)
+                    .map(TagGroups::normalize)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             
             log.info("Found {} unique tags to migrate", cleanedTags.size());
+            // Counted up front already unless that failed; only a difference since then is added
+            int counted = totals.tags() != null ? totals.tags() : 0;
+            progressTracker.addTotal(run.migrationId(), MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, cleanedTags.size() - counted);
             
-            int processedTags = 0;
             for (String tag : cleanedTags) {
+                if (tagToGroupMapping.containsKey(tag)) {
+                    progressTracker.recordItems(run.migrationId(), MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, 1, 0);
+                    continue;
+                }
+                
+                awaitRunning(run.control());
+                
                 try {
-                    MailerLiteGroup group = mailerLiteService.createGroup(tag);
+                    MailerLiteGroup group = run.mailerLite().createGroup(tag);
                     tagToGroupMapping.put(tag, group.getId());
-                    processedTags++;
+                    checkpoint.groupCreated(tag, group.getId());
+                    tagGroups.created(tag, group.getId());
                     
-                    progressTracker.updateProgress(cleanedTags.size(), processedTags, processedTags, 0);
+                    progressTracker.recordItems(run.migrationId(), MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, 1, 0);
                     
                     // Rate limiting
                     Thread.sleep(500); // 120 requests per minute = 2 per second
                     
                 } catch (Exception e) {
+                    throwIfStopped(run.control(), e);
                     log.error("Failed to create group for tag: {}", tag, e);
-                    progressTracker.addError("TAG_GROUP_MIGRATION", "Tag", tag, 
+                    progressTracker.addError(run.migrationId(), "TAG_GROUP_MIGRATION", "Tag", tag, 
                             e.getMessage(), "GROUP_CREATION_FAILED", true);
                 }
             }
             
+            tagGroups.complete();
             log.info("Tag to group migration completed. Created {} groups", tagToGroupMapping.size());
-            return tagToGroupMapping;
             
         } catch (Exception e) {
             log.error("Tag to group migration failed", e);
@@ -113,11 +323,11 @@ public class MigrationOrchestrator {
         }
     }
     
-    private void migrateEcommerceData() {
+    private void migrateEcommerceData(MigrationRun run) {
         log.info("Starting e-commerce data migration");
         
         try {
-            List<EcommerceShop> shops = mailchimpService.getAllEcommerceShops();
+            List<EcommerceShop> shops = run.mailchimp().getAllEcommerceShops();
             
             if (shops.isEmpty()) {
                 log.info("No e-commerce shops found to migrate");
@@ -127,15 +337,16 @@ public class MigrationOrchestrator {
             for (EcommerceShop shop : shops) {
                 try {
                     // Create shop in MailerLite
-                    Map<String, Object> createdShop = mailerLiteService.createEcommerceShop(shop);
+                    Map<String, Object> createdShop = run.mailerLite().createEcommerceShop(shop);
                     log.info("Created e-commerce shop: {}", createdShop);
                     
                     // Note: Categories and products migration would need additional Mailchimp API calls
                     // This is a simplified version focusing on shop creation
                     
                 } catch (Exception e) {
+                    throwIfStopped(run.control(), e);
                     log.error("Failed to migrate e-commerce shop: {}", shop.getName(), e);
-                    progressTracker.addError("ECOMMERCE_SETUP", "Shop", shop.getId(),
+                    progressTracker.addError(run.migrationId(), "ECOMMERCE_SETUP", "Shop", shop.getId(),
                             e.getMessage(), "SHOP_CREATION_FAILED", true);
                 }
             }
@@ -146,51 +357,86 @@ public class MigrationOrchestrator {
         }
     }
     
-    private void migrateSubscribers(Map<String, String> tagToGroupMapping) {
+    private void migrateSubscribers(TagGroups tagGroups, MigrationRun run, MigrationTotals totals) {
+        MigrationCheckpoint checkpoint = run.checkpoint();
         log.info("Starting subscriber migration");
         
         try {
-            List<MailchimpList> lists = mailchimpService.getAllLists();
+            List<MailchimpList> lists = run.mailchimp().getAllLists();
+            BatchPacer pacer = new BatchPacer(BATCH_INTERVAL);
+            
+            if (migrationConfig.getPipeline().isEnabled()) {
+                subscriberPipeline.migrate(run, lists, totals, batch -> prepareBatch(batch, tagGroups, run, pacer));
+                return;
+            }
+            
             int totalSubscribers = 0;
             int migratedSubscribers = 0;
+            int failedSubscribers = 0;
             
-            for (MailchimpList list : lists) {
-                List<MailchimpMember> members = mailchimpService.getAllMembers(list.getId());
-                totalSubscribers += members.size();
+            // Subscribed members of all lists first, the other statuses as backfill after them
+            for (SubscriberLane lane : SubscriberLane.plan(lists, migrationConfig.getLanes())) {
+                if (checkpoint.isListCompleted(lane.key())) {
+                    continue;
+                }
                 
-                // Process in batches
-                List<List<MailchimpMember>> batches = partitionList(members, migrationConfig.getBatchSize());
+                // Members before the checkpointed offset were already handled in an earlier run
+                int offset = checkpoint.offsetFor(lane.key());
+                int laneStart = offset;
+                Integer counted = totals.remaining(lane);
+                boolean last = false;
                 
-                for (List<MailchimpMember> batch : batches) {
-                    try {
-                        List<Subscriber> subscribers = batch.stream()
-                                .map(this::convertToSubscriber)
-                                .collect(Collectors.toList());
-                        
-                        // Bulk import subscribers
-                        mailerLiteService.bulkImportSubscribers(subscribers, null);
+                while (!last) {
+                    awaitRunning(run.control());
+                    
+                    MigrationStaging.Page page = run.staging().readPage(run.mailchimp(), lane, offset,
+                            migrationConfig.getPipeline().getPageSize());
+                    totalSubscribers += page.members().size();
+                    if (counted == null) {
+                        progressTracker.addTotal(run.migrationId(), MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                                page.members().size());
+                    }
+                    
+                    // Process in batches
+                    List<List<MailchimpMember>> batches = partitionList(page.members(), migrationConfig.getBatchSize());
+                    
+                    for (List<MailchimpMember> batch : batches) {
+                        awaitRunning(run.control());
+                        Consumer<List<MailchimpMember>> importer = prepareBatch(batch, tagGroups, run, pacer);
                         
-                        // Assign to groups based on tags
-                        for (MailchimpMember member : batch) {
-                            assignMemberToGroups(member, tagToGroupMapping);
+                        try {
+                            int rejected = deadLetterQueue.importIsolatingFailures(run, batch, importer);
+                            
+                            migratedSubscribers += batch.size() - rejected;
+                            failedSubscribers += rejected;
+                            progressTracker.recordItems(run.migrationId(), MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                                    batch.size() - rejected, rejected);
+                            
+                        } catch (Exception e) {
+                            // A batch aborted by cancellation is not acknowledged and will be imported on resume
+                            throwIfStopped(run.control(), e);
+                            log.error("Failed to migrate subscriber batch", e);
+                            progressTracker.addError(run.migrationId(), "SUBSCRIBER_MIGRATION", "Batch", "batch", 
+                                    e.getMessage(), "BATCH_MIGRATION_FAILED", true);
                         }
                         
-                        migratedSubscribers += batch.size();
-                        progressTracker.updateProgress(totalSubscribers, migratedSubscribers, migratedSubscribers, 0);
-                        
-                        // Rate limiting
-                        Thread.sleep(1000);
-                        
-                    } catch (Exception e) {
-                        log.error("Failed to migrate subscriber batch", e);
-                        progressTracker.addError("SUBSCRIBER_MIGRATION", "Batch", "batch", 
-                                e.getMessage(), "BATCH_MIGRATION_FAILED", true);
+                        offset += batch.size();
+                        checkpoint.batchAcknowledged(lane.key(), offset);
                     }
+                    
+                    last = page.last();
                 }
+                
+                if (counted != null) {
+                    // Members added or removed since they were counted
+                    progressTracker.addTotal(run.migrationId(), MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                            offset - laneStart - counted);
+                }
+                checkpoint.listCompleted(lane.key());
             }
             
-            log.info("Subscriber migration completed. Migrated {}/{} subscribers", 
-                    migratedSubscribers, totalSubscribers);
+            log.info("Subscriber migration completed. Migrated {}/{} subscribers ({} failed)", 
+                    migratedSubscribers, totalSubscribers, failedSubscribers);
             
         } catch (Exception e) {
             log.error("Subscriber migration failed", e);
@@ -198,28 +444,109 @@ public class MigrationOrchestrator {
         }
     }
     
-    private void assignMemberToGroups(MailchimpMember member, Map<String, String> tagToGroupMapping) {
+    // Runs on the migration's own thread before the batch is handed to an import worker: waits for
+    // the groups of the batch's tags and for its turn under the rate limit, so the returned import
+    // (of the batch or, when bisecting, of parts of it) never waits on this migration's tag phase
+    private Consumer<List<MailchimpMember>> prepareBatch(List<MailchimpMember> batch, TagGroups tagGroups,
+                                                         MigrationRun run, BatchPacer pacer) {
+        Map<MailchimpMember, List<String>> groupIds = new IdentityHashMap<>();
+        for (MailchimpMember member : batch) {
+            groupIds.put(member, resolveGroups(member, tagGroups, run.control()));
+        }
+        
+        try {
+            pacer.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.control().throwIfCancelled();
+            throw new MigrationException("Subscriber import interrupted", e);
+        }
+        return members -> importBatch(members, groupIds, run);
+    }
+    
+    private void importBatch(List<MailchimpMember> batch, Map<MailchimpMember, List<String>> groupIds, MigrationRun run) {
+        List<Subscriber> subscribers = batch.stream()
+                .map(this::convertToSubscriber)
+                .collect(Collectors.toList());
+        
+        // Bulk import subscribers
+        String importId = run.mailerLite().bulkImportSubscribers(subscribers, null);
+        if (importId != null) {
+            run.checkpoint().importSubmitted(importId);
+        }
+        
+        // Assign to groups based on tags
+        for (MailchimpMember member : batch) {
+            assignMemberToGroups(member, groupIds.getOrDefault(member, List.of()), run);
+        }
+    }
+    
+    private void awaitRunning(MigrationControl control) {
+        try {
+            control.awaitRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            control.throwIfCancelled();
+            throw new MigrationException("Migration interrupted while paused", e);
+        }
+    }
+    
+    // Per-item failures are recorded and skipped, unless the item failed because the migration is
+    // being stopped (cancelled, or interrupted because another phase failed)
+    private void throwIfStopped(MigrationControl control, Exception e) {
+        control.throwIfCancelled();
+        if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Migration interrupted", e);
+        }
+    }
+    
+    private String awaitGroup(TagGroups tagGroups, String tag, MigrationControl control) {
+        try {
+            return tagGroups.await(tag);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            control.throwIfCancelled();
+            throw new MigrationException("Interrupted while waiting for group of tag " + tag, e);
+        }
+    }
+    
+    // Ids of the groups of the member's tags. Groups are known by the normalized tag name the tag
+    // phase created them under; tags without a usable name, or that never got a group, are left out.
+    private List<String> resolveGroups(MailchimpMember member, TagGroups tagGroups, MigrationControl control) {
+        List<String> groupIds = new ArrayList<>();
         if (member.getTags() != null) {
             for (MailchimpMember.Tag tag : member.getTags()) {
-                String groupId = tagToGroupMapping.get(tag.getName());
+                String groupName = TagGroups.normalize(tag.getName());
+                if (groupName == null) {
+                    continue;
+                }
+                String groupId = awaitGroup(tagGroups, groupName, control);
                 if (groupId != null) {
-                    try {
-                        mailerLiteService.assignSubscriberToGroup(member.getId(), groupId);
-                    } catch (Exception e) {
-                        log.warn("Failed to assign subscriber {} to group {}", member.getEmailAddress(), tag.getName());
-                    }
+                    groupIds.add(groupId);
                 }
             }
         }
+        return groupIds;
+    }
+    
+    private void assignMemberToGroups(MailchimpMember member, List<String> groupIds, MigrationRun run) {
+        for (String groupId : groupIds) {
+            try {
+                run.mailerLite().assignSubscriberToGroup(member.getId(), groupId);
+            } catch (Exception e) {
+                log.warn("Failed to assign subscriber {} to group {}", member.getEmailAddress(), groupId);
+            }
+        }
     }
     
-    private void generateCampaignMigrationGuide() {
+    private void generateCampaignMigrationGuide(String migrationId) {
         log.info("Generating campaign migration guide");
         
         // This phase provides guidance rather than automated migration
         // as campaigns require manual recreation
         
-        progressTracker.setMetric("campaign_guide", Map.of(
+        progressTracker.setMetric(migrationId, "campaign_guide", Map.of(
                 "welcome_email", "Create a welcome automation in MailerLite triggered by new subscriber",
                 "purchase_sequence", "Set up e-commerce automations based on purchase behavior",
                 "newsletter", "Create a regular campaign schedule or automation series",
@@ -257,23 +584,6 @@ public class MigrationOrchestrator {
                 .build();
     }
     
-    private String cleanTagName(String tagName) {
-        if (tagName == null || tagName.trim().isEmpty()) {
-            return null;
-        }
-        
-        // Clean tag name: remove special characters, limit length
-        String cleaned = tagName.trim()
-                .replaceAll("[^a-zA-Z0-9\\s-_]", "")
-                .replaceAll("\\s+", " ");
-        
-        if (cleaned.length() > 50) {
-            cleaned = cleaned.substring(0, 50);
-        }
-        
-        return cleaned.isEmpty() ? null : cleaned;
-    }
-    
     private <T> List<List<T>> partitionList(List<T> list, int batchSize) {
         List<List<T>> partitions = new ArrayList<>();
         for (int i = 0; i < list.size(); i += batchSize) {
@@ -0,0 +1,31 @@
+package digital.pragmatech.service.migration;
+
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+// Files of a migration are named after its id, which reaches the stores from request parameters.
+// Only ids of letters, digits, '-' and '_' are accepted; generated ids are UUIDs. The resolved file
+// must also lie directly inside its directory, so no id can reach another store's files.
+final class MigrationPaths {
+
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+
+    private MigrationPaths() {
+    }
+
+    static boolean isValidId(String migrationId) {
+        return migrationId != null && ID.matcher(migrationId).matches();
+    }
+
+    static Path resolve(Path directory, String migrationId, String suffix) {
+        if (!isValidId(migrationId)) {
+            throw new IllegalArgumentException("Invalid migration id");
+        }
+        Path base = directory.toAbsolutePath().normalize();
+        Path file = base.resolve(migrationId + suffix).normalize();
+        if (!base.equals(file.getParent())) {
+            throw new IllegalArgumentException("Migration file outside of " + base);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,289 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationStatus;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Live state of one migration. Item counts and errors are what workers report all the time, from
+// many threads at once: counts go into LongAdders, so reporting never waits on another worker, and
+// errors into a bounded MigrationErrors. Phase and state transitions are rare and change several fields
+// together; they are applied under the object's lock, which a snapshot takes as well so it never
+// sees half a transition. MigrationStatus objects are only built by snapshot, when the status is
+// read or broadcast, and only if something changed since the last one: every change bumps a
+// revision once it has been applied, and the last snapshot is kept, serialized, with the revision
+// it was built at. The time remaining moves without any change, so it is estimated on every read
+// and a different estimate makes a new snapshot as well.
+final class MigrationProgress {
+
+    private final String migrationId;
+    private final LocalDateTime startedAt;
+    private final Map<MigrationStatus.MigrationPhase, PhaseCounters> phases = new EnumMap<>(MigrationStatus.MigrationPhase.class);
+    private final MigrationErrors errors;
+    private final EtaEstimator eta;
+    private final AtomicLong revision = new AtomicLong();
+
+    private volatile MigrationStatus.MigrationPhase phase = MigrationStatus.MigrationPhase.INITIALIZATION;
+    private volatile MigrationStatus.MigrationState state = MigrationStatus.MigrationState.IN_PROGRESS;
+    private volatile LocalDateTime completedAt;
+    // Guarded by this
+    private SerializedStatus serialized;
+    private long serializedRevision;
+    private long serializedEstimate;
+    private Map<String, Integer> serializedLimits;
+
+    MigrationProgress(String migrationId, List<MigrationStatus.MigrationPhase> workPhases,
+                      EtaEstimator eta, MigrationErrors errors) {
+        this.migrationId = migrationId;
+        this.startedAt = LocalDateTime.now();
+        this.eta = eta;
+        this.errors = errors;
+        // Fixed from here on, so the map itself is only ever read
+        workPhases.forEach(workPhase -> phases.put(workPhase, new PhaseCounters()));
+    }
+
+    String migrationId() {
+        return migrationId;
+    }
+
+    LocalDateTime startedAt() {
+        return startedAt;
+    }
+
+    MigrationStatus.MigrationPhase phase() {
+        return phase;
+    }
+
+    MigrationStatus.MigrationState state() {
+        return state;
+    }
+
+    boolean isActive() {
+        return state == MigrationStatus.MigrationState.IN_PROGRESS || state == MigrationStatus.MigrationState.PAUSED;
+    }
+
+    void addTotal(MigrationStatus.MigrationPhase workPhase, int items) {
+        PhaseCounters counters = phases.get(workPhase);
+        if (counters != null) {
+            counters.total.add(items);
+            revision.incrementAndGet();
+        }
+    }
+
+    void recordItems(MigrationStatus.MigrationPhase workPhase, int successful, int failed) {
+        PhaseCounters counters = phases.get(workPhase);
+        if (counters != null) {
+            counters.successful.add(successful);
+            counters.failed.add(failed);
+            revision.incrementAndGet();
+        }
+    }
+
+    void addError(MigrationStatus.MigrationError error) {
+        errors.record(error);
+        revision.incrementAndGet();
+    }
+
+    // Releases the error file; errors reported later still reach it, reopening it
+    void closeErrors() {
+        errors.close();
+    }
+
+    // Work phases may overlap, so phase is not simply the one started last: see currentPhase
+    synchronized void startPhase(MigrationStatus.MigrationPhase workPhase) {
+        PhaseCounters counters = phases.get(workPhase);
+        if (counters != null) {
+            counters.state = MigrationStatus.MigrationState.IN_PROGRESS;
+            counters.startedAt = LocalDateTime.now();
+            phase = currentPhase();
+        } else {
+            phase = workPhase;
+        }
+        revision.incrementAndGet();
+    }
+
+    synchronized void completePhase(MigrationStatus.MigrationPhase workPhase) {
+        PhaseCounters counters = phases.get(workPhase);
+        if (counters != null) {
+            counters.state = MigrationStatus.MigrationState.COMPLETED;
+            counters.completedAt = LocalDateTime.now();
+            phase = currentPhase();
+        }
+        revision.incrementAndGet();
+    }
+
+    synchronized void complete() {
+        phase = MigrationStatus.MigrationPhase.COMPLETION;
+        state = MigrationStatus.MigrationState.COMPLETED;
+        completedAt = LocalDateTime.now();
+        revision.incrementAndGet();
+    }
+
+    synchronized void fail() {
+        LocalDateTime now = LocalDateTime.now();
+        phases.values().stream()
+                .filter(counters -> counters.state == MigrationStatus.MigrationState.IN_PROGRESS)
+                .forEach(counters -> {
+                    counters.state = MigrationStatus.MigrationState.FAILED;
+                    counters.completedAt = now;
+                });
+        state = MigrationStatus.MigrationState.FAILED;
+        completedAt = now;
+        revision.incrementAndGet();
+    }
+
+    synchronized void pause() {
+        state = MigrationStatus.MigrationState.PAUSED;
+        revision.incrementAndGet();
+    }
+
+    synchronized void resume() {
+        if (state == MigrationStatus.MigrationState.PAUSED) {
+            state = MigrationStatus.MigrationState.IN_PROGRESS;
+        }
+        revision.incrementAndGet();
+    }
+
+    // The last snapshot as long as neither the migration, the concurrency limits nor the time
+    // remaining have changed; a stalled migration's estimate keeps growing although its revision
+    // does not. The revision is read before the snapshot is built, so a change made meanwhile leaves
+    // the snapshot newer than its revision and the next call builds another one; never the other way round.
+    synchronized SerializedStatus serializedSnapshot(Map<String, Integer> concurrencyLimits,
+                                                     Function<MigrationStatus, SerializedStatus> serializer) {
+        long current = revision.get();
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress = phaseProgress();
+        long estimatedSeconds = estimateSeconds(phaseProgress);
+        if (serialized == null || current != serializedRevision || estimatedSeconds != serializedEstimate
+                || !concurrencyLimits.equals(serializedLimits)) {
+            serialized = serializer.apply(snapshot(concurrencyLimits, phaseProgress, estimatedSeconds));
+            serializedRevision = current;
+            serializedEstimate = estimatedSeconds;
+            serializedLimits = concurrencyLimits;
+        }
+        return serialized;
+    }
+
+    // Counters keep moving while the snapshot is built, so its figures may be a few items apart;
+    // each of them is a value the counter actually had
+    synchronized MigrationStatus snapshot(Map<String, Integer> concurrencyLimits) {
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress = phaseProgress();
+        return snapshot(concurrencyLimits, phaseProgress, estimateSeconds(phaseProgress));
+    }
+
+    private MigrationStatus snapshot(Map<String, Integer> concurrencyLimits,
+                                     Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress,
+                                     long estimatedSeconds) {
+        MigrationErrors.Window recentErrors = errors.window();
+        return MigrationStatus.builder()
+                .id(migrationId)
+                .phase(phase)
+                .state(state)
+                .startedAt(startedAt)
+                .completedAt(completedAt)
+                .progress(overallProgress())
+                .statistics(statistics(phaseProgress, estimatedSeconds))
+                .errors(recentErrors.errors())
+                .errorCount(recentErrors.count())
+                .errorSummary(errors.summary())
+                .concurrencyLimits(concurrencyLimits)
+                .phases(phaseProgress)
+                .build();
+    }
+
+    // Totals and migrated items come straight from the phase counters
+    private MigrationStatus.Statistics statistics(Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress,
+                                                  long estimatedSeconds) {
+        MigrationStatus.PhaseProgress tags = phaseProgress.get(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
+        MigrationStatus.PhaseProgress subscribers = phaseProgress.get(MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION);
+        return MigrationStatus.Statistics.builder()
+                .totalSubscribers(subscribers.getTotalItems())
+                .migratedSubscribers(subscribers.getProcessedItems() - subscribers.getFailedItems())
+                .totalTags(tags.getTotalItems())
+                .migratedGroups(tags.getProcessedItems() - tags.getFailedItems())
+                .estimatedTimeRemaining(estimatedSeconds)
+                .build();
+    }
+
+    private Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress() {
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress = new EnumMap<>(MigrationStatus.MigrationPhase.class);
+        phases.forEach((workPhase, counters) -> phaseProgress.put(workPhase, counters.snapshot()));
+        return phaseProgress;
+    }
+
+    // The estimate is only made while the migration runs
+    private long estimateSeconds(Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phaseProgress) {
+        return state == MigrationStatus.MigrationState.IN_PROGRESS
+                ? eta.estimateSeconds(phaseProgress, System.nanoTime())
+                : 0;
+    }
+
+    // The running work phase that comes last in migration order, or the last one started once none
+    // runs. It depends only on which phases run, not on the order their threads happened to start in.
+    private MigrationStatus.MigrationPhase currentPhase() {
+        MigrationStatus.MigrationPhase running = null;
+        MigrationStatus.MigrationPhase started = phase;
+        for (Map.Entry<MigrationStatus.MigrationPhase, PhaseCounters> entry : phases.entrySet()) {
+            if (entry.getValue().state == MigrationStatus.MigrationState.IN_PROGRESS) {
+                running = entry.getKey();
+            }
+            if (entry.getValue().state != MigrationStatus.MigrationState.NOT_STARTED) {
+                started = entry.getKey();
+            }
+        }
+        return running != null ? running : started;
+    }
+
+    // Items of all work phases together, so the overall figure covers every phase running in
+    // parallel, whichever of them started last; phases without items (e-commerce setup) add nothing
+    private MigrationStatus.Progress overallProgress() {
+        long totalItems = 0;
+        long successfulItems = 0;
+        long failedItems = 0;
+        for (PhaseCounters counters : phases.values()) {
+            totalItems += counters.total.sum();
+            successfulItems += counters.successful.sum();
+            failedItems += counters.failed.sum();
+        }
+        MigrationStatus.Progress progress = MigrationStatus.Progress.builder()
+                .totalItems(toInt(totalItems))
+                .processedItems(toInt(successfulItems + failedItems))
+                .successfulItems(toInt(successfulItems))
+                .failedItems(toInt(failedItems))
+                .percentComplete(0.0)
+                .build();
+        progress.updatePercentComplete();
+        return progress;
+    }
+
+    private static int toInt(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
+    }
+
+    private static final class PhaseCounters {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder successful = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private MigrationStatus.MigrationState state = MigrationStatus.MigrationState.NOT_STARTED;
+        private LocalDateTime startedAt;
+        private LocalDateTime completedAt;
+
+        private MigrationStatus.PhaseProgress snapshot() {
+            long failedItems = failed.sum();
+            return MigrationStatus.PhaseProgress.builder()
+                    .state(state)
+                    .totalItems(toInt(total.sum()))
+                    .processedItems(toInt(successful.sum() + failedItems))
+                    .failedItems(toInt(failedItems))
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
@@ -1,243 +1,262 @@
 package digital.pragmatech.service.migration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
 import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MigrationProgressTracker {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    // Finished migrations kept for the status API before the oldest are dropped
+    private static final int MAX_FINISHED_MIGRATIONS = 20;
     
-    private final AtomicReference<MigrationStatus> currentMigrationStatus = new AtomicReference<>();
-    private final ConcurrentHashMap<String, Object> metrics = new ConcurrentHashMap<>();
+    private static final List<MigrationStatus.MigrationPhase> WORK_PHASES = List.of(
+            MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION,
+            MigrationStatus.MigrationPhase.ECOMMERCE_SETUP,
+            MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+            MigrationStatus.MigrationPhase.CAMPAIGN_MIGRATION);
+    
+    private final ProgressBroadcaster broadcaster;
+    private final ApiConcurrencyLimiters concurrencyLimiters;
+    private final MigrationConfig migrationConfig;
+    private final ErrorStore errorStore;
+    private final ObjectMapper objectMapper;
+    private final MigrationHistory history;
+    
+    private final ConcurrentHashMap<String, MigrationProgress> migrations = new ConcurrentHashMap<>();
+    private final AtomicReference<String> latestMigrationId = new AtomicReference<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Object>> metrics = new ConcurrentHashMap<>();
     
     public void initializeMigration(String migrationId) {
-        MigrationStatus status = MigrationStatus.builder()
-                .id(migrationId)
-                .phase(MigrationStatus.MigrationPhase.INITIALIZATION)
-                .state(MigrationStatus.MigrationState.IN_PROGRESS)
-                .startedAt(LocalDateTime.now())
-                .progress(MigrationStatus.Progress.builder()
-                        .totalItems(0)
-                        .processedItems(0)
-                        .successfulItems(0)
-                        .failedItems(0)
-                        .percentComplete(0.0)
-                        .build())
-                .statistics(MigrationStatus.Statistics.builder()
-                        .totalSubscribers(0)
-                        .migratedSubscribers(0)
-                        .totalTags(0)
-                        .migratedGroups(0)
-                        .totalProducts(0)
-                        .migratedProducts(0)
-                        .totalCategories(0)
-                        .migratedCategories(0)
-                        .estimatedTimeRemaining(0)
-                        .build())
+        MigrationProgress previous = migrations.put(migrationId,
+                new MigrationProgress(migrationId, WORK_PHASES, new EtaEstimator(migrationConfig), errorStore.open(migrationId)));
+        if (previous != null) {
+            previous.closeErrors();
+        }
+        latestMigrationId.set(migrationId);
+        pruneFinishedMigrations();
+        broadcaster.publishNow(migrationId, () -> getSerializedStatus(migrationId));
+        history.record(getStatus(migrationId));
+        log.info("Migration {} initialized", migrationId);
+    }
+    
+    public void updatePhase(String migrationId, MigrationStatus.MigrationPhase phase) {
+        transition(migrationId, progress -> progress.startPhase(phase));
+        log.info("Migration phase updated to: {}", phase);
+    }
+    
+    public void completePhase(String migrationId, MigrationStatus.MigrationPhase phase) {
+        transition(migrationId, progress -> progress.completePhase(phase));
+        log.info("Migration phase {} completed", phase);
+    }
+    
+    // Items of a phase found so far; the overall progress adds up the items of all phases
+    public void addTotal(String migrationId, MigrationStatus.MigrationPhase phase, int items) {
+        update(migrationId, progress -> progress.addTotal(phase, items));
+    }
+    
+    // Counts are added rather than set, so workers finishing out of order never overwrite each other
+    public void recordItems(String migrationId, MigrationStatus.MigrationPhase phase, int successfulItems, int failedItems) {
+        update(migrationId, progress -> progress.recordItems(phase, successfulItems, failedItems));
+    }
+    
+    public void addError(String migrationId, String phase, String entity, String entityId, String errorMessage, String errorCode, boolean retryable) {
+        MigrationStatus.MigrationError error = MigrationStatus.MigrationError.builder()
+                .timestamp(LocalDateTime.now())
+                .phase(phase)
+                .entity(entity)
+                .entityId(entityId)
+                .errorMessage(errorMessage)
+                .errorCode(errorCode)
+                .retryable(retryable)
                 .build();
         
-        currentMigrationStatus.set(status);
-        broadcastUpdate();
-        log.info("Migration {} initialized", migrationId);
+        update(migrationId, progress -> progress.addError(error));
+        log.error("Migration error added: {} - {} ({})", phase, errorMessage, errorCode);
     }
     
-    public void updatePhase(MigrationStatus.MigrationPhase phase) {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(phase)
-                    .state(current.getState())
-                    .startedAt(current.getStartedAt())
-                    .progress(current.getProgress())
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-            log.info("Migration phase updated to: {}", phase);
-        }
+    public void completeMigration(String migrationId) {
+        transition(migrationId, MigrationProgress::complete);
+        closeErrors(migrationId);
+        log.info("Migration {} completed", migrationId);
     }
     
-    public void updateProgress(int totalItems, int processedItems, int successfulItems, int failedItems) {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus.Progress updatedProgress = MigrationStatus.Progress.builder()
-                    .totalItems(totalItems)
-                    .processedItems(processedItems)
-                    .successfulItems(successfulItems)
-                    .failedItems(failedItems)
-                    .build();
-            updatedProgress.updatePercentComplete();
-            
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(current.getPhase())
-                    .state(current.getState())
-                    .startedAt(current.getStartedAt())
-                    .progress(updatedProgress)
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
+    public void failMigration(String migrationId, String errorMessage) {
+        MigrationProgress progress = migrations.get(migrationId);
+        if (progress == null) {
+            return;
         }
+        addError(migrationId, progress.phase().toString(), "Migration", migrationId, errorMessage, "MIGRATION_FAILED", false);
+        
+        transition(migrationId, MigrationProgress::fail);
+        closeErrors(migrationId);
+        log.error("Migration {} failed: {}", migrationId, errorMessage);
     }
     
-    public void updateStatistics(MigrationStatus.Statistics statistics) {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(current.getPhase())
-                    .state(current.getState())
-                    .startedAt(current.getStartedAt())
-                    .progress(current.getProgress())
-                    .statistics(statistics)
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-        }
+    public void pauseMigration(String migrationId) {
+        transition(migrationId, MigrationProgress::pause);
+        log.info("Migration {} paused", migrationId);
     }
     
-    public void addError(String phase, String entity, String entityId, String errorMessage, String errorCode, boolean retryable) {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus.MigrationError error = MigrationStatus.MigrationError.builder()
-                    .timestamp(LocalDateTime.now())
-                    .phase(phase)
-                    .entity(entity)
-                    .entityId(entityId)
-                    .errorMessage(errorMessage)
-                    .errorCode(errorCode)
-                    .retryable(retryable)
-                    .build();
-            
-            current.getErrors().add(error);
-            broadcastUpdate();
-            log.error("Migration error added: {} - {} ({})", phase, errorMessage, errorCode);
-        }
+    public void resumeMigration(String migrationId) {
+        transition(migrationId, MigrationProgress::resume);
+        log.info("Migration {} resumed", migrationId);
     }
     
-    public void completeMigration() {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(MigrationStatus.MigrationPhase.COMPLETION)
-                    .state(MigrationStatus.MigrationState.COMPLETED)
-                    .startedAt(current.getStartedAt())
-                    .completedAt(LocalDateTime.now())
-                    .progress(current.getProgress())
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-            log.info("Migration {} completed", current.getId());
-        }
+    // The most recently started migration, for callers that do not name one
+    public MigrationStatus getCurrentStatus() {
+        String migrationId = latestMigrationId.get();
+        return migrationId != null ? getStatus(migrationId) : null;
     }
     
-    public void failMigration(String errorMessage) {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            addError(current.getPhase().toString(), "Migration", current.getId(), errorMessage, "MIGRATION_FAILED", false);
-            
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(current.getPhase())
-                    .state(MigrationStatus.MigrationState.FAILED)
-                    .startedAt(current.getStartedAt())
-                    .completedAt(LocalDateTime.now())
-                    .progress(current.getProgress())
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-            log.error("Migration {} failed: {}", current.getId(), errorMessage);
-        }
+    // Built from the live counters when the migration has changed since the last call, and shared
+    // with every caller until then; callers may keep it but must not modify it
+    public MigrationStatus getStatus(String migrationId) {
+        SerializedStatus serialized = getSerializedStatus(migrationId);
+        return serialized != null ? serialized.getStatus() : null;
     }
     
-    public void pauseMigration() {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(current.getPhase())
-                    .state(MigrationStatus.MigrationState.PAUSED)
-                    .startedAt(current.getStartedAt())
-                    .progress(current.getProgress())
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-            log.info("Migration {} paused", current.getId());
-        }
+    // The status along with its JSON, for responses that write it as is; without an id the most
+    // recently started migration is meant
+    public SerializedStatus getSerializedStatus(String migrationId) {
+        String id = migrationId != null ? migrationId : latestMigrationId.get();
+        MigrationProgress progress = id != null ? migrations.get(id) : null;
+        return progress != null ? serialized(progress, concurrencyLimiters.getLimits()) : null;
+    }
+    
+    // Migrations still held in memory or recorded in the history, including those from before a restart
+    public boolean isKnown(String migrationId) {
+        return migrations.containsKey(migrationId) || history.contains(migrationId);
+    }
+    
+    // Versioned snapshot to (re)start following the progress stream of a migration
+    public ProgressMessage getProgressSnapshot(String migrationId) {
+        SerializedStatus status = getSerializedStatus(migrationId);
+        return status != null ? broadcaster.snapshot(status) : null;
     }
     
-    public void resumeMigration() {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null && current.getState() == MigrationStatus.MigrationState.PAUSED) {
-            MigrationStatus updated = MigrationStatus.builder()
-                    .id(current.getId())
-                    .phase(current.getPhase())
-                    .state(MigrationStatus.MigrationState.IN_PROGRESS)
-                    .startedAt(current.getStartedAt())
-                    .progress(current.getProgress())
-                    .statistics(current.getStatistics())
-                    .errors(current.getErrors())
-                    .build();
-            
-            currentMigrationStatus.set(updated);
-            broadcastUpdate();
-            log.info("Migration {} resumed", current.getId());
+    // Progress of a migration as server-sent events, or null if the migration is not known
+    public SseEmitter streamProgress(String migrationId, Long lastEventId) {
+        if (!migrations.containsKey(migrationId)) {
+            return null;
         }
+        return broadcaster.stream(migrationId, lastEventId, () -> getSerializedStatus(migrationId));
     }
     
-    public MigrationStatus getCurrentStatus() {
-        return currentMigrationStatus.get();
+    // All errors of a migration page by page, including those no longer on its status
+    public PageResponse<MigrationStatus.MigrationError> getErrors(String migrationId, int page, int size) {
+        int pageSize = Math.clamp(size, 1, migrationConfig.getErrors().getMaxPageSize());
+        int pageNumber = Math.max(0, page);
+        // One more than asked for tells whether another page follows
+        List<MigrationStatus.MigrationError> errors = errorStore.read(migrationId, (long) pageNumber * pageSize, pageSize + 1);
+        boolean hasNext = errors.size() > pageSize;
+        return new PageResponse<>(hasNext ? errors.subList(0, pageSize) : errors, pageNumber, pageSize, hasNext);
+    }
+    
+    // Without an id, the latest entry of every recorded run, most recently started first; with an
+    // id, every transition recorded for that migration, most recent first
+    public PageResponse<MigrationHistoryEntry> getHistory(String migrationId, int page, int size) {
+        int pageSize = Math.clamp(size, 1, migrationConfig.getHistory().getMaxPageSize());
+        int pageNumber = Math.max(0, page);
+        return migrationId != null
+                ? history.entries(migrationId, pageNumber, pageSize)
+                : history.runs(pageNumber, pageSize);
+    }
+    
+    public List<MigrationStatus> getAllStatuses() {
+        Map<String, Integer> concurrencyLimits = concurrencyLimiters.getLimits();
+        return migrations.values().stream()
+                .sorted(Comparator.comparing(MigrationProgress::startedAt).reversed())
+                .map(progress -> serialized(progress, concurrencyLimits).getStatus())
+                .toList();
     }
     
     public boolean isMigrationInProgress() {
-        MigrationStatus current = currentMigrationStatus.get();
-        return current != null && current.getState() == MigrationStatus.MigrationState.IN_PROGRESS;
+        return migrations.values().stream()
+                .anyMatch(progress -> progress.state() == MigrationStatus.MigrationState.IN_PROGRESS);
+    }
+    
+    public long countActiveMigrations() {
+        return migrations.values().stream()
+                .filter(MigrationProgress::isActive)
+                .count();
+    }
+    
+    public boolean isAtMigrationCapacity() {
+        return countActiveMigrations() >= migrationConfig.getMaxConcurrentMigrations();
     }
     
-    public void setMetric(String key, Object value) {
-        metrics.put(key, value);
+    public void setMetric(String migrationId, String key, Object value) {
+        metrics.computeIfAbsent(migrationId, id -> new ConcurrentHashMap<>()).put(key, value);
     }
     
-    public Object getMetric(String key) {
-        return metrics.get(key);
+    public Object getMetric(String migrationId, String key) {
+        Map<String, Object> migrationMetrics = metrics.get(migrationId);
+        return migrationMetrics != null ? migrationMetrics.get(key) : null;
+    }
+    
+    private void pruneFinishedMigrations() {
+        List<MigrationProgress> finished = migrations.values().stream()
+                .filter(progress -> !progress.isActive())
+                .sorted(Comparator.comparing(MigrationProgress::startedAt))
+                .toList();
+        
+        for (int i = 0; i < finished.size() - MAX_FINISHED_MIGRATIONS; i++) {
+            String migrationId = finished.get(i).migrationId();
+            migrations.remove(migrationId);
+            finished.get(i).closeErrors();
+            metrics.remove(migrationId);
+            // Without a status the broadcaster drops the migration's stream state and ends its event streams
+            broadcaster.publishNow(migrationId, () -> null);
+        }
+    }
+    
+    private SerializedStatus serialized(MigrationProgress progress, Map<String, Integer> concurrencyLimits) {
+        return progress.serializedSnapshot(concurrencyLimits, status -> SerializedStatus.of(status, objectMapper));
+    }
+    
+    private void closeErrors(String migrationId) {
+        MigrationProgress progress = migrations.get(migrationId);
+        if (progress != null) {
+            progress.closeErrors();
+        }
+    }
+    
+    // Progress and errors are broadcast coalesced, at most a few times per second
+    private void update(String migrationId, Consumer<MigrationProgress> change) {
+        MigrationProgress progress = migrations.get(migrationId);
+        if (progress != null) {
+            change.accept(progress);
+            broadcaster.publish(migrationId, () -> getSerializedStatus(migrationId));
+        }
     }
     
-    private void broadcastUpdate() {
-        MigrationStatus current = currentMigrationStatus.get();
-        if (current != null) {
-            try {
-                messagingTemplate.convertAndSend("/topic/migration-progress", current);
-            } catch (Exception e) {
-                log.warn("Failed to broadcast migration update via WebSocket", e);
-            }
+    // Phase and state changes are broadcast right away and recorded in the history
+    private void transition(String migrationId, Consumer<MigrationProgress> change) {
+        MigrationProgress progress = migrations.get(migrationId);
+        if (progress != null) {
+            change.accept(progress);
+            broadcaster.publishNow(migrationId, () -> getSerializedStatus(migrationId));
+            history.record(getStatus(migrationId));
         }
     }
-}
\ No newline at end of file
+}
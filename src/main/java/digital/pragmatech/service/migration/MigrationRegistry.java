@@ -0,0 +1,30 @@
+package digital.pragmatech.service.migration;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class MigrationRegistry {
+
+    private final ConcurrentHashMap<String, MigrationRun> runs = new ConcurrentHashMap<>();
+
+    public void register(MigrationRun run) {
+        runs.put(run.migrationId(), run);
+    }
+
+    public void unregister(MigrationRun run) {
+        runs.remove(run.migrationId(), run);
+    }
+
+    public Optional<MigrationRun> find(String migrationId) {
+        return Optional.ofNullable(runs.get(migrationId));
+    }
+
+    public Collection<MigrationRun> getRunning() {
+        return List.copyOf(runs.values());
+    }
+}
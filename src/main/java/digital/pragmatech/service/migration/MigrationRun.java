@@ -0,0 +1,14 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.service.mailchimp.MailchimpService;
+import digital.pragmatech.service.mailerlite.MailerLiteService;
+
+// Everything that belongs to one running migration: the API services bound to its account
+// credentials, its checkpoint journal, the members staged on disk and its pause/cancel control.
+public record MigrationRun(String migrationId,
+                           MailchimpService mailchimp,
+                           MailerLiteService mailerLite,
+                           MigrationCheckpoint checkpoint,
+                           MigrationControl control,
+                           MigrationStaging staging) {
+}
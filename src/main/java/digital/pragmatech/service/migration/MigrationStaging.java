@@ -0,0 +1,91 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import digital.pragmatech.service.mailchimp.MailchimpService;
+import digital.pragmatech.service.storage.StagingStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Members extracted by one migration, staged on disk per lane between extraction and import. Lists
+// of any size are paged through with only the current page on the heap, and a resumed migration
+// re-reads what was already extracted instead of going back to Mailchimp. A lane's staged members
+// are its members in list order from offset 0; pages that cannot extend that (a resume without
+// staged data) are read from the API without staging.
+public class MigrationStaging {
+
+    private static final String EXTRACTED_MARKER = "extracted";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final int segmentSize;
+    private final ConcurrentHashMap<String, StagingStore<MailchimpMember>> lanes = new ConcurrentHashMap<>();
+
+    public MigrationStaging(Path directory, ObjectMapper objectMapper, int segmentSize) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.segmentSize = segmentSize;
+    }
+
+    public static MigrationStaging disabled() {
+        return new MigrationStaging(null, null, 0);
+    }
+
+    public Page readPage(MailchimpService source, SubscriberLane lane, int offset, int count) {
+        if (directory == null) {
+            List<MailchimpMember> members = source.getMembersPage(lane.listId(), lane.status(), offset, count);
+            return new Page(members, members.size() < count);
+        }
+
+        String key = lane.key();
+        StagingStore<MailchimpMember> store = lanes.computeIfAbsent(key,
+                id -> new StagingStore<>(directory.resolve(id), objectMapper, MailchimpMember.class, segmentSize));
+        if (offset < store.size()) {
+            List<MailchimpMember> members = store.read(offset, count);
+            // A short read only ends the list if extraction got to its end before
+            return new Page(members, members.size() < count && Files.exists(marker(key)));
+        }
+
+        List<MailchimpMember> members = source.getMembersPage(lane.listId(), lane.status(), offset, count);
+        if (offset == store.size()) {
+            store.append(members);
+            if (members.size() < count) {
+                markExtracted(key);
+            }
+        }
+        return new Page(members, members.size() < count);
+    }
+
+    // Keeps the staged data for a later resume
+    public void close() {
+        lanes.values().forEach(StagingStore::close);
+    }
+
+    public void delete() {
+        close();
+        if (directory != null) {
+            StagingStore.deleteDirectory(directory);
+        }
+    }
+
+    private void markExtracted(String laneKey) {
+        try {
+            Files.createDirectories(directory.resolve(laneKey));
+            Files.writeString(marker(laneKey), "");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to mark lane " + laneKey + " as extracted", e);
+        }
+    }
+
+    private Path marker(String laneKey) {
+        return directory.resolve(laneKey).resolve(EXTRACTED_MARKER);
+    }
+
+    public record Page(List<MailchimpMember> members, boolean last) {
+    }
+}
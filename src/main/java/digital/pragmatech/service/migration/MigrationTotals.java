@@ -0,0 +1,148 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// What a migration still has to do, counted before its phases start so progress percentages are
+// stable from the first batch on instead of growing list by list. Member counts per lane come from
+// the list stats Mailchimp returns with the lists (subscribed, unsubscribed and cleaned); lanes the
+// stats do not cover, and tags, are counted with one request each, all of them in parallel. Lanes
+// and phases the checkpoint has already covered are left out.
+// A count that could not be read is unknown; its lane's total is then discovered page by page as
+// before. Members added or removed while the migration runs are reconciled once a lane is done.
+@Slf4j
+public final class MigrationTotals {
+
+    private static final Map<String, String> STATUS_STATS = Map.of(
+            "subscribed", "member_count",
+            "unsubscribed", "unsubscribe_count",
+            "cleaned", "cleaned_count");
+
+    private final Map<String, Integer> remainingByLane;
+    private final Integer tags;
+
+    private MigrationTotals(Map<String, Integer> remainingByLane, Integer tags) {
+        this.remainingByLane = remainingByLane;
+        this.tags = tags;
+    }
+
+    public static MigrationTotals unknown() {
+        return new MigrationTotals(Map.of(), null);
+    }
+
+    public static MigrationTotals count(MigrationRun run, List<MailchimpList> lists,
+                                        MigrationConfig.LanesConfig lanesConfig) throws InterruptedException {
+        MigrationCheckpoint checkpoint = run.checkpoint();
+        Map<String, Integer> remainingByLane = new HashMap<>();
+        Map<SubscriberLane, Future<Integer>> counting = new HashMap<>();
+        List<Future<List<String>>> listTags = new ArrayList<>();
+        Map<String, MailchimpList> listsById = new HashMap<>();
+        lists.forEach(list -> listsById.put(list.getId(), list));
+
+        // Requests go through the adaptive limiter, which bounds how many of these actually run at once
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SubscriberLane lane : SubscriberLane.plan(lists, lanesConfig)) {
+                if (checkpoint.isListCompleted(lane.key())) {
+                    remainingByLane.put(lane.key(), 0);
+                    continue;
+                }
+                Integer fromStats = fromStats(listsById.get(lane.listId()), lane.status());
+                if (fromStats != null) {
+                    remainingByLane.put(lane.key(), fromStats);
+                } else {
+                    counting.put(lane, executor.submit(() -> run.mailchimp().countMembers(lane.listId(), lane.status())));
+                }
+            }
+
+            boolean tagsPending = !checkpoint.isPhaseCompleted(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
+            if (tagsPending) {
+                lists.forEach(list -> listTags.add(executor.submit(() -> run.mailchimp().getAllTags(list.getId()))));
+            }
+
+            try {
+                for (Map.Entry<SubscriberLane, Future<Integer>> entry : counting.entrySet()) {
+                    Integer count = await(entry.getValue(), "members of lane " + entry.getKey().key());
+                    if (count != null) {
+                        remainingByLane.put(entry.getKey().key(), count);
+                    }
+                }
+                Integer tags = tagsPending ? countTags(listTags) : Integer.valueOf(0);
+
+                // Whatever the checkpoint shows as extracted already is not counted again
+                remainingByLane.replaceAll((key, count) -> Math.max(0, count - checkpoint.offsetFor(key)));
+                return new MigrationTotals(remainingByLane, tags);
+            } catch (InterruptedException e) {
+                // Cancelled: abort the counts still running rather than wait for them on close
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    // Members the lane still has to migrate, or null if not known up front
+    public Integer remaining(SubscriberLane lane) {
+        return remainingByLane.get(lane.key());
+    }
+
+    public long subscribers() {
+        return remainingByLane.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    // Distinct tags the tag phase will create groups for, or null if not known up front
+    public Integer tags() {
+        return tags;
+    }
+
+    // Import batches the known lanes still need, each lane's last batch possibly partial
+    public long plannedBatches(int batchSize) {
+        int size = Math.max(1, batchSize);
+        return remainingByLane.values().stream()
+                .mapToLong(count -> (count + size - 1) / size)
+                .sum();
+    }
+
+    private static Integer fromStats(MailchimpList list, String status) {
+        String key = status != null ? STATUS_STATS.get(status) : null;
+        if (list == null || key == null || list.getStats() == null) {
+            return null;
+        }
+        // Stats mix counts with rates, so values are not necessarily integers
+        Map<String, ?> stats = list.getStats();
+        return stats.get(key) instanceof Number count ? count.intValue() : null;
+    }
+
+    private static Integer countTags(List<Future<List<String>>> listTags) throws InterruptedException {
+        Set<String> tags = new HashSet<>();
+        for (Future<List<String>> future : listTags) {
+            List<String> names = await(future, "tags");
+            if (names == null) {
+                return null;
+            }
+            names.stream().map(TagGroups::normalize).filter(Objects::nonNull).forEach(tags::add);
+        }
+        return tags.size();
+    }
+
+    private static <T> T await(Future<T> future, String what) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.warn("Could not count {} up front, discovering it while migrating: {}", what, e.getCause().getMessage());
+            return null;
+        }
+    }
+}
@@ -65,8 +65,8 @@ public class MigrationValidator {
                 int totalTags = 0;
                 
                 for (var list : lists) {
-                    var members = mailchimpService.getAllMembers(list.getId());
-                    totalSubscribers += members.size();
+                    // Counted rather than read, so the members are only ever extracted by the migration
+                    totalSubscribers += mailchimpService.countMembers(list.getId(), null);
                     
                     var tags = mailchimpService.getAllTags(list.getId());
                     totalTags += tags.size();
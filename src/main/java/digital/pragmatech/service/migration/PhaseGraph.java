@@ -0,0 +1,105 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.exception.MigrationException;
+import digital.pragmatech.model.common.MigrationStatus.MigrationPhase;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Runs the phases of one migration as a dependency graph: a phase starts on its own thread as soon
+// as the phases it depends on have completed, so independent phases overlap. The first failure
+// interrupts the phases still running and is rethrown once they have stopped.
+// Finer-grained dependencies (a single group rather than the whole tag phase) are left to the
+// phases themselves, see TagGroups.
+@Slf4j
+public class PhaseGraph {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    // In the order phases were added, which is a topological order as dependencies come first
+    private final Map<MigrationPhase, Node> nodes = new LinkedHashMap<>();
+
+    // Dependencies have to be added first, which keeps the graph free of cycles
+    public PhaseGraph add(MigrationPhase phase, Runnable task, MigrationPhase... dependsOn) {
+        for (MigrationPhase dependency : dependsOn) {
+            if (!nodes.containsKey(dependency)) {
+                throw new IllegalArgumentException(phase + " depends on " + dependency + ", which has not been added");
+            }
+        }
+        nodes.put(phase, new Node(task, List.of(dependsOn)));
+        return this;
+    }
+
+    public void run(String migrationId, MigrationControl control) throws InterruptedException {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofPlatform().name("migration-" + migrationId + "-phase-", 1).factory());
+        Map<MigrationPhase, CompletableFuture<Void>> futures = new EnumMap<>(MigrationPhase.class);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        try {
+            nodes.forEach((phase, node) -> {
+                CompletableFuture<?>[] dependencies = node.dependsOn().stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> runAttached(node.task(), control), executor);
+                future.whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        done.completeExceptionally(failure);
+                    }
+                });
+                futures.put(phase, future);
+            });
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .thenRun(() -> done.complete(null));
+
+            done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new MigrationException("Migration phase failed", cause);
+        } finally {
+            executor.shutdownNow();
+            awaitStopped(executor);
+        }
+    }
+
+    private void runAttached(Runnable task, MigrationControl control) {
+        control.attach(Thread.currentThread());
+        try {
+            task.run();
+        } finally {
+            control.detach(Thread.currentThread());
+        }
+    }
+
+    // Phases still writing to the checkpoint must be gone before the caller closes it
+    private void awaitStopped(ExecutorService executor) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Migration phases did not stop within {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record Node(Runnable task, List<MigrationPhase> dependsOn) {
+    }
+}
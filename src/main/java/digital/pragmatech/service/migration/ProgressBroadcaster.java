@@ -0,0 +1,238 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.websocket.SlowConsumerPolicy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Sends migration progress to WebSocket subscribers at most max-broadcasts-per-second times per
+// migration, on a topic of its own so a client only receives the migration it follows. An update
+// only marks the migration as changed; the status is read when the next tick sends it, so however
+// many updates workers report in between, one message with the latest state goes out. Phase and state transitions are sent right away so no client misses one.
+// The first message of a migration is a full snapshot, every further one a delta against the
+// previous message, so message size follows the rate of change rather than the size of the status.
+// Versions are consecutive; a client that sees a gap fetches a fresh snapshot and continues from
+// its version. The first snapshot is also announced on a shared topic, which is how clients learn
+// about migrations started elsewhere.
+// Coalesced updates are marked droppable: a client that falls behind may be skipped for them, see
+// SlowConsumerPolicy, and resyncs on the resulting version gap. The same messages go to
+// ProgressEventStreams for clients following as server-sent events. Each message is serialized
+// once, and the same bytes make up the frames of both topics and the events of every stream.
+@Slf4j
+@Component
+public class ProgressBroadcaster {
+
+    private static final String TOPIC = "/topic/migration-progress/";
+    private static final String ANNOUNCEMENTS = "/topic/migrations";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ProgressEventStreams eventStreams;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Supplier<SerializedStatus>> pending = new ConcurrentHashMap<>();
+    private final Map<String, Stream> streams = new HashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("progress-broadcast").daemon(true).factory());
+
+    public ProgressBroadcaster(SimpMessagingTemplate messagingTemplate, ProgressEventStreams eventStreams,
+                               ObjectMapper objectMapper, MigrationConfig migrationConfig) {
+        this.messagingTemplate = messagingTemplate;
+        this.eventStreams = eventStreams;
+        this.objectMapper = objectMapper;
+        long intervalMillis = Math.max(1, 1000 / Math.max(1, migrationConfig.getProgress().getMaxBroadcastsPerSecond()));
+        ticker.scheduleAtFixedRate(this::sendPending, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Sent with the next tick; status is read at that point
+    public void publish(String migrationId, Supplier<SerializedStatus> status) {
+        pending.put(migrationId, status);
+    }
+
+    // Sent now, superseding an update of the migration that is still pending
+    public void publishNow(String migrationId, Supplier<SerializedStatus> status) {
+        pending.remove(migrationId);
+        send(migrationId, status, false);
+    }
+
+    // Full status at the version of the last message sent, for clients that join late or lost track.
+    // The status may be newer than that message; applying the following deltas to it is safe as they
+    // carry absolute values, except for their new errors, of which clients skip the ones numbered
+    // below the snapshot's errorCount (see ProgressMessage.errorsFrom)
+    public synchronized ProgressMessage snapshot(SerializedStatus status) {
+        String migrationId = status.getStatus().getId();
+        Stream stream = streams.get(migrationId);
+        return ProgressMessage.builder()
+                .type(ProgressMessage.Type.SNAPSHOT)
+                .migrationId(migrationId)
+                .version(stream != null ? stream.version : 0)
+                .status(status)
+                .build();
+    }
+
+    // Event stream of the migration, continuing after lastEventId where possible
+    public SseEmitter stream(String migrationId, Long lastEventId, Supplier<SerializedStatus> status) {
+        return eventStreams.open(migrationId, lastEventId, () -> {
+            SerializedStatus current = status.get();
+            return current != null ? serialize(snapshot(current)) : null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void sendPending() {
+        pending.keySet().forEach(migrationId -> {
+            Supplier<SerializedStatus> status = pending.remove(migrationId);
+            if (status != null) {
+                send(migrationId, status, true);
+            }
+        });
+    }
+
+    // Reading, diffing and sending under one lock keeps versions in order
+    private synchronized void send(String migrationId, Supplier<SerializedStatus> supplier, boolean droppable) {
+        SerializedStatus status = supplier.get();
+        if (status == null) {
+            streams.remove(migrationId);
+            eventStreams.close(migrationId);
+            return;
+        }
+
+        ProgressMessage message = next(migrationId, status);
+        if (message == null) {
+            return;
+        }
+        SerializedMessage serialized;
+        try {
+            serialized = serialize(message);
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to serialize update of migration {}", migrationId, e);
+            return;
+        }
+
+        eventStreams.publish(serialized);
+        try {
+            boolean snapshot = message.getType() == ProgressMessage.Type.SNAPSHOT;
+            messagingTemplate.send(TOPIC + migrationId, frame(serialized, droppable && !snapshot));
+            if (snapshot) {
+                messagingTemplate.send(ANNOUNCEMENTS, frame(serialized, false));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to broadcast migration update via WebSocket", e);
+        }
+    }
+
+    private SerializedMessage serialize(ProgressMessage message) {
+        try {
+            return new SerializedMessage(message, objectMapper.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize progress of migration " + message.getMigrationId(), e);
+        }
+    }
+
+    // One frame per destination, all of them around the same bytes
+    private Message<byte[]> frame(SerializedMessage serialized, boolean droppable) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(SlowConsumerPolicy.DROPPABLE_HEADER, Boolean.toString(droppable));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(serialized.json(), accessor.getMessageHeaders());
+    }
+
+    // The snapshot carries the status as serialized already; deltas are diffed from the status itself
+    private ProgressMessage next(String migrationId, SerializedStatus serialized) {
+        MigrationStatus status = serialized.getStatus();
+        Stream previous = streams.get(migrationId);
+        Stream current = new Stream(previous != null ? previous.version + 1 : 1, status);
+
+        if (previous == null) {
+            streams.put(migrationId, current);
+            return ProgressMessage.builder()
+                    .type(ProgressMessage.Type.SNAPSHOT)
+                    .migrationId(migrationId)
+                    .version(current.version)
+                    .status(serialized)
+                    .build();
+        }
+
+        Map<String, Object> changes = changes(previous.sent, current.sent);
+        // The status only holds the most recent errors; of more new ones than that, the oldest are left out
+        List<MigrationStatus.MigrationError> errors = status.getErrors();
+        long added = Math.max(0, status.getErrorCount() - previous.sent.getErrorCount());
+        List<MigrationStatus.MigrationError> newErrors = errors.subList(errors.size() - (int) Math.min(added, errors.size()), errors.size());
+        if (changes.isEmpty() && newErrors.isEmpty()) {
+            return null;
+        }
+
+        streams.put(migrationId, current);
+        return ProgressMessage.builder()
+                .type(ProgressMessage.Type.DELTA)
+                .migrationId(migrationId)
+                .version(current.version)
+                .baseVersion(previous.version)
+                .changes(changes.isEmpty() ? null : changes)
+                .errorsFrom(newErrors.isEmpty() ? null : status.getErrorCount() - newErrors.size())
+                .newErrors(newErrors.isEmpty() ? null : new ArrayList<>(newErrors))
+                .build();
+    }
+
+    private Map<String, Object> changes(MigrationStatus previous, MigrationStatus current) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "phase", previous.getPhase(), current.getPhase());
+        putIfChanged(changes, "state", previous.getState(), current.getState());
+        putIfChanged(changes, "completedAt", previous.getCompletedAt(), current.getCompletedAt());
+        putIfChanged(changes, "progress", previous.getProgress(), current.getProgress());
+        putIfChanged(changes, "statistics", previous.getStatistics(), current.getStatistics());
+        putIfChanged(changes, "concurrencyLimits", previous.getConcurrencyLimits(), current.getConcurrencyLimits());
+        putIfChanged(changes, "errorCount", previous.getErrorCount(), current.getErrorCount());
+        putIfChanged(changes, "errorSummary", previous.getErrorSummary(), current.getErrorSummary());
+
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases = new EnumMap<>(MigrationStatus.MigrationPhase.class);
+        current.getPhases().forEach((phase, progress) -> {
+            if (!Objects.equals(previous.getPhases().get(phase), progress)) {
+                phases.put(phase, progress);
+            }
+        });
+        if (!phases.isEmpty()) {
+            changes.put("phases", phases);
+        }
+        return changes;
+    }
+
+    private void putIfChanged(Map<String, Object> changes, String field, Object previous, Object current) {
+        if (!Objects.equals(previous, current)) {
+            changes.put(field, current);
+        }
+    }
+
+    private record Stream(long version, MigrationStatus sent) {
+    }
+}
@@ -0,0 +1,226 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.model.common.MigrationStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+// Migration progress as server-sent events, for command line tools and monitoring scripts. Events
+// are the messages ProgressBroadcaster sends over WebSocket, as the bytes it serialized them to,
+// so they are coalesced the same way and written without serializing them again per client; each
+// event's id is the message version. The last replay-limit messages of every migration
+// are kept, so a client reconnecting with Last-Event-ID continues with the ones it missed; if those
+// are no longer kept, it gets a fresh snapshot instead.
+// A request does not hold a servlet thread; each open stream is written by a virtual thread that is
+// parked while there is nothing to send. A client that falls behind by more than MAX_QUEUED events
+// has them discarded and gets a snapshot once it catches up. The stream ends after the migration's
+// final state has been sent.
+@Slf4j
+@Component
+public class ProgressEventStreams {
+
+    private static final int MAX_QUEUED = 32;
+    // Queued in place of discarded events; the writer sends a snapshot for it
+    private static final SerializedMessage RESYNC = new SerializedMessage(new ProgressMessage(), new byte[0]);
+
+    private final int replayLimit;
+    private final long timeoutMillis;
+    private final Map<String, Deque<SerializedMessage>> recent = new HashMap<>();
+    private final Map<String, List<Watcher>> watchers = new HashMap<>();
+
+    public ProgressEventStreams(MigrationConfig migrationConfig) {
+        MigrationConfig.ProgressConfig progress = migrationConfig.getProgress();
+        this.replayLimit = Math.max(1, progress.getReplayLimit());
+        this.timeoutMillis = progress.getStreamTimeout().toMillis();
+    }
+
+    // Continues after lastEventId if given and still kept, otherwise starts from a snapshot
+    SseEmitter open(String migrationId, Long lastEventId, Supplier<SerializedMessage> snapshot) {
+        return open(new SseEmitter(timeoutMillis), migrationId, lastEventId, snapshot);
+    }
+
+    SseEmitter open(SseEmitter emitter, String migrationId, Long lastEventId, Supplier<SerializedMessage> snapshot) {
+        Watcher watcher = new Watcher(migrationId, emitter, snapshot);
+        synchronized (this) {
+            Deque<SerializedMessage> kept = recent.get(migrationId);
+            if (lastEventId != null && covers(kept, lastEventId)) {
+                if (lastEventId == kept.getLast().version() && isFinal(kept.getLast())) {
+                    emitter.complete();
+                    return emitter;
+                }
+                kept.stream().filter(message -> message.version() > lastEventId).forEach(watcher::offer);
+                return watch(watcher);
+            }
+        }
+
+        // Read outside the lock: it takes the broadcaster's, which is held while publishing here
+        SerializedMessage first = snapshot.get();
+        if (first == null) {
+            emitter.complete();
+            return emitter;
+        }
+        synchronized (this) {
+            watcher.offer(first);
+            Deque<SerializedMessage> kept = recent.get(migrationId);
+            if (kept != null) {
+                // Sent while the snapshot was read
+                kept.stream().filter(message -> message.version() > first.version()).forEach(watcher::offer);
+            }
+            return watch(watcher);
+        }
+    }
+
+    // Called by ProgressBroadcaster in version order
+    synchronized void publish(SerializedMessage message) {
+        String migrationId = message.message().getMigrationId();
+        Deque<SerializedMessage> kept = recent.computeIfAbsent(migrationId, id -> new ArrayDeque<>());
+        if (message.message().getType() == ProgressMessage.Type.SNAPSHOT) {
+            kept.clear();
+        }
+        kept.addLast(message);
+        while (kept.size() > replayLimit) {
+            kept.removeFirst();
+        }
+        watchers.getOrDefault(migrationId, List.of()).forEach(watcher -> watcher.offer(message));
+    }
+
+    // The migration is no longer tracked; its open streams end
+    synchronized void close(String migrationId) {
+        recent.remove(migrationId);
+        List<Watcher> closing = watchers.remove(migrationId);
+        if (closing != null) {
+            closing.forEach(Watcher::end);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        watchers.values().forEach(list -> list.forEach(Watcher::end));
+        watchers.clear();
+    }
+
+    private SseEmitter watch(Watcher watcher) {
+        watchers.computeIfAbsent(watcher.migrationId, id -> new ArrayList<>()).add(watcher);
+        watcher.start();
+        return watcher.emitter;
+    }
+
+    private synchronized void remove(Watcher watcher) {
+        List<Watcher> list = watchers.get(watcher.migrationId);
+        if (list != null) {
+            list.remove(watcher);
+            if (list.isEmpty()) {
+                watchers.remove(watcher.migrationId);
+            }
+        }
+    }
+
+    // Whether the messages after lastEventId are all still kept
+    private static boolean covers(Deque<SerializedMessage> kept, long lastEventId) {
+        if (kept == null || kept.isEmpty()) {
+            return false;
+        }
+        ProgressMessage first = kept.getFirst().message();
+        long firstCovered = first.getType() == ProgressMessage.Type.SNAPSHOT ? first.getVersion() : first.getBaseVersion();
+        return lastEventId >= firstCovered && lastEventId <= kept.getLast().version();
+    }
+
+    private static boolean isFinal(SerializedMessage serialized) {
+        ProgressMessage message = serialized.message();
+        Object state = message.getType() == ProgressMessage.Type.SNAPSHOT
+                ? message.getStatus().getStatus().getState()
+                : message.getChanges() != null ? message.getChanges().get("state") : null;
+        return state == MigrationStatus.MigrationState.COMPLETED || state == MigrationStatus.MigrationState.FAILED;
+    }
+
+    private final class Watcher {
+
+        private final String migrationId;
+        private final SseEmitter emitter;
+        private final Supplier<SerializedMessage> snapshot;
+        private final LinkedBlockingQueue<SerializedMessage> queue = new LinkedBlockingQueue<>();
+        private volatile Thread writer;
+
+        private Watcher(String migrationId, SseEmitter emitter, Supplier<SerializedMessage> snapshot) {
+            this.migrationId = migrationId;
+            this.emitter = emitter;
+            this.snapshot = snapshot;
+        }
+
+        // Never blocks; called under the streams' lock
+        private void offer(SerializedMessage message) {
+            if (queue.size() >= MAX_QUEUED) {
+                queue.clear();
+                queue.add(RESYNC);
+            }
+            queue.add(message);
+        }
+
+        private void start() {
+            emitter.onCompletion(this::stop);
+            emitter.onTimeout(this::stop);
+            emitter.onError(error -> stop());
+            writer = Thread.ofVirtual().name("progress-stream-" + migrationId).start(this::write);
+        }
+
+        // Ends the stream from the server's side
+        private void end() {
+            emitter.complete();
+            stop();
+        }
+
+        private void stop() {
+            if (writer != null && writer != Thread.currentThread()) {
+                writer.interrupt();
+            }
+        }
+
+        private void write() {
+            long sentVersion = 0;
+            try {
+                while (true) {
+                    SerializedMessage message = queue.take();
+                    if (message == RESYNC) {
+                        message = snapshot.get();
+                        if (message == null) {
+                            break;
+                        }
+                    } else if (message.version() <= sentVersion) {
+                        // Already covered by a snapshot sent in its place
+                        continue;
+                    }
+
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(message.version()))
+                            .name(message.message().getType().name().toLowerCase())
+                            .data(message.json(), MediaType.APPLICATION_JSON));
+                    sentVersion = message.version();
+                    if (isFinal(message)) {
+                        break;
+                    }
+                }
+                emitter.complete();
+            } catch (InterruptedException e) {
+                // Stream closed by the client, a timeout or shutdown
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Progress stream of migration {} closed: {}", migrationId, e.getMessage());
+            } finally {
+                remove(this);
+            }
+        }
+    }
+}
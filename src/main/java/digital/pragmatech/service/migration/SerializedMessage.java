@@ -0,0 +1,12 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.dto.response.ProgressMessage;
+
+// A progress message and its JSON, serialized once by ProgressBroadcaster and handed as the same
+// bytes to the WebSocket topics and every event stream; nobody writes to the array after that
+record SerializedMessage(ProgressMessage message, byte[] json) {
+
+    long version() {
+        return message.getVersion();
+    }
+}
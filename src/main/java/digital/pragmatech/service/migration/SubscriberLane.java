@@ -0,0 +1,35 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The members of one list with one status, extracted and imported as a unit. Lanes are worked
+// through in status priority order across all lists, so the subscribed members of every list are
+// in MailerLite before the unsubscribed and cleaned backfill starts. A lane without a status
+// covers the whole list.
+public record SubscriberLane(String listId, String status) {
+
+    // Identifies the lane in the checkpoint and the staging area
+    public String key() {
+        return status == null ? listId : listId + "-" + status;
+    }
+
+    public static List<SubscriberLane> plan(List<MailchimpList> lists, MigrationConfig.LanesConfig config) {
+        List<SubscriberLane> lanes = new ArrayList<>();
+        if (!config.isEnabled()) {
+            lists.forEach(list -> lanes.add(new SubscriberLane(list.getId(), null)));
+            return lanes;
+        }
+
+        for (String status : config.getStatuses()) {
+            if (config.isSkipCleaned() && "cleaned".equals(status)) {
+                continue;
+            }
+            lists.forEach(list -> lanes.add(new SubscriberLane(list.getId(), status)));
+        }
+        return lanes;
+    }
+}
@@ -0,0 +1,227 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Backpressured alternative to the sequential subscriber loop: pages are fetched on the calling
+// thread, split into batches and handed to the shared import workers. A batch may only be
+// dispatched once an in-flight slot is free, so a slow MailerLite side throttles Mailchimp paging
+// and at most maxInFlightBatches batches plus one page are held in memory.
+// Batches finish out of order, so the checkpointed offset of a lane only advances over the
+// contiguous range of acknowledged batches.
+// While the migration is paused no page is fetched and no batch dispatched; in-flight batches still
+// finish, so a paused pipeline holds at most the current page and no API slots.
+// Anything an import would have to wait for (groups of its tags, rate limiting) is done when the
+// batch is prepared, on the migration's own thread, so the shared workers only ever import.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubscriberPipeline {
+
+    private static final long IMPORTER_SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final FairBatchScheduler scheduler;
+    private final MigrationProgressTracker progressTracker;
+    private final MigrationConfig migrationConfig;
+    private final DeadLetterQueue deadLetterQueue;
+
+    public PipelineResult migrate(MigrationRun run, List<MailchimpList> lists,
+                                  Consumer<List<MailchimpMember>> batchImporter) throws InterruptedException {
+        return migrate(run, lists, MigrationTotals.unknown(), batch -> batchImporter);
+    }
+
+    // Lanes counted up front get their total reconciled once extracted; the others add each page
+    public PipelineResult migrate(MigrationRun run, List<MailchimpList> lists, MigrationTotals totals,
+                                  BatchImporter batchImporter) throws InterruptedException {
+        MigrationConfig.PipelineConfig config = migrationConfig.getPipeline();
+        int maxInFlight = Math.max(1, config.getMaxInFlightBatches());
+        String migrationId = run.migrationId();
+        MigrationCheckpoint checkpoint = run.checkpoint();
+        MigrationControl control = run.control();
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        // Set when the pipeline gives up early; batches still queued are then skipped unacknowledged
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger migrated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        boolean drained = false;
+        try {
+            for (SubscriberLane lane : SubscriberLane.plan(lists, migrationConfig.getLanes())) {
+                if (checkpoint.isListCompleted(lane.key())) {
+                    continue;
+                }
+
+                int offset = checkpoint.offsetFor(lane.key());
+                int laneStart = offset;
+                Integer counted = totals.remaining(lane);
+                Watermark watermark = new Watermark(lane.key(), offset, checkpoint);
+                boolean last = false;
+
+                while (!last) {
+                    control.awaitRunning();
+
+                    // Extract, through the staging area so a resume re-reads staged members from disk
+                    MigrationStaging.Page staged = run.staging().readPage(run.mailchimp(), lane, offset, config.getPageSize());
+                    List<MailchimpMember> page = staged.members();
+                    total.addAndGet(page.size());
+                    if (counted == null) {
+                        progressTracker.addTotal(migrationId, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION, page.size());
+                    }
+
+                    // Batch
+                    for (int i = 0; i < page.size(); i += migrationConfig.getBatchSize()) {
+                        int end = Math.min(i + migrationConfig.getBatchSize(), page.size());
+                        List<MailchimpMember> batch = page.subList(i, end);
+                        int batchStart = offset + i;
+                        int batchEnd = offset + end;
+
+                        Consumer<List<MailchimpMember>> importer = batchImporter.prepare(batch);
+
+                        // Blocks until an importer has capacity, propagating demand back to page fetching
+                        control.awaitRunning();
+                        inFlight.acquire();
+                        scheduler.submit(migrationId, () -> {
+                            boolean acknowledged = false;
+                            try {
+                                if (stopped.get() || control.isCancelled()) {
+                                    return;
+                                }
+                                acknowledged = true;
+
+                                // Transform + import; rejected members are isolated and dead-lettered
+                                int rejected = deadLetterQueue.importIsolatingFailures(run, batch, importer);
+                                migrated.addAndGet(batch.size() - rejected);
+                                failed.addAndGet(rejected);
+                                progressTracker.recordItems(migrationId, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                                        batch.size() - rejected, rejected);
+                            } catch (Exception e) {
+                                if (stopped.get() || control.isCancelled()) {
+                                    // Aborted, not failed: leave it unacknowledged so a resume imports it again
+                                    acknowledged = false;
+                                } else {
+                                    log.error("Failed to migrate subscriber batch", e);
+                                    failed.addAndGet(batch.size());
+                                    progressTracker.recordItems(migrationId, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                                            0, batch.size());
+                                    progressTracker.addError(migrationId, "SUBSCRIBER_MIGRATION", "Batch", "batch",
+                                            e.getMessage(), "BATCH_MIGRATION_FAILED", true);
+                                }
+                            } finally {
+                                if (acknowledged) {
+                                    watermark.acknowledge(batchStart, batchEnd);
+                                }
+                                inFlight.release();
+                            }
+                        });
+                    }
+
+                    offset += page.size();
+                    last = staged.last();
+                }
+
+                if (counted != null) {
+                    progressTracker.addTotal(migrationId, MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION,
+                            offset - laneStart - counted);
+                }
+                watermark.extractionFinished(offset);
+            }
+
+            // Drain: every permit returns once the last in-flight batch has been acknowledged
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+            drained = true;
+        } finally {
+            if (!drained) {
+                stopped.set(true);
+                scheduler.interrupt(migrationId);
+                awaitStopped(inFlight, maxInFlight);
+            }
+        }
+
+        log.info("Pipelined subscriber migration completed. Migrated {}/{} subscribers ({} failed)",
+                migrated.get(), total.get(), failed.get());
+        return new PipelineResult(total.get(), migrated.get(), failed.get());
+    }
+
+    // Waits briefly for running batches to stop so none is still writing to the checkpoint;
+    // queued ones return their permits as soon as a worker skips them
+    private void awaitStopped(Semaphore inFlight, int maxInFlight) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!inFlight.tryAcquire(maxInFlight, IMPORTER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Subscriber batches did not stop within {} seconds", IMPORTER_SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Watermark {
+
+        private final String laneKey;
+        private final MigrationCheckpoint checkpoint;
+        private final TreeMap<Integer, Integer> acknowledgedAhead = new TreeMap<>();
+        private int committed;
+        private int extractedEnd = -1;
+
+        Watermark(String laneKey, int startOffset, MigrationCheckpoint checkpoint) {
+            this.laneKey = laneKey;
+            this.committed = startOffset;
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized void acknowledge(int start, int end) {
+            acknowledgedAhead.put(start, end);
+            int previous = committed;
+            while (acknowledgedAhead.containsKey(committed)) {
+                committed = acknowledgedAhead.remove(committed);
+            }
+            if (committed != previous) {
+                checkpoint.batchAcknowledged(laneKey, committed);
+            }
+            completeIfDone();
+        }
+
+        synchronized void extractionFinished(int end) {
+            extractedEnd = end;
+            completeIfDone();
+        }
+
+        private void completeIfDone() {
+            if (extractedEnd >= 0 && committed == extractedEnd) {
+                checkpoint.listCompleted(laneKey);
+                extractedEnd = -1;
+            }
+        }
+    }
+
+    // Called on the migration's own thread for each batch before it is dispatched; may block there.
+    // The import it returns runs on a shared worker, for the batch or parts of it, and must not.
+    @FunctionalInterface
+    public interface BatchImporter {
+        Consumer<List<MailchimpMember>> prepare(List<MailchimpMember> batch);
+    }
+
+    public record PipelineResult(int totalSubscribers, int migratedSubscribers, int failedSubscribers) {
+    }
+}
@@ -0,0 +1,59 @@
+package digital.pragmatech.service.migration;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Group ids by tag, filled in while the tag phase creates them. Subscriber imports only need a
+// tag's group to assign members to it, so they wait for that one group instead of the whole phase.
+public class TagGroups {
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> groups = new ConcurrentHashMap<>();
+    private volatile boolean complete;
+
+    public void created(String tag, String groupId) {
+        future(tag).complete(groupId);
+    }
+
+    // Called when the tag phase is done; tags without a group by then (creation failed or the tag
+    // was never found) will not get one
+    public void complete() {
+        complete = true;
+        groups.values().forEach(future -> future.complete(null));
+    }
+
+    // Blocks until the group for this tag exists; null if it never will
+    public String await(String tag) throws InterruptedException {
+        CompletableFuture<String> future = future(tag);
+        if (complete) {
+            future.complete(null);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Group lookup failed for tag " + tag, e.getCause());
+        }
+    }
+
+    // Name of the group for a Mailchimp tag: special characters removed, at most 50 characters;
+    // null if nothing usable is left
+    public static String normalize(String tagName) {
+        if (tagName == null || tagName.trim().isEmpty()) {
+            return null;
+        }
+        
+        String cleaned = tagName.trim()
+                .replaceAll("[^a-zA-Z0-9\\s-_]", "")
+                .replaceAll("\\s+", " ");
+        
+        if (cleaned.length() > 50) {
+            cleaned = cleaned.substring(0, 50);
+        }
+        
+        return cleaned.isEmpty() ? null : cleaned;
+    }
+
+    private CompletableFuture<String> future(String tag) {
+        return groups.computeIfAbsent(tag, key -> new CompletableFuture<>());
+    }
+}
@@ -0,0 +1,223 @@
+package digital.pragmatech.service.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only file of JSON documents, one per line. Every append is flushed to the OS straight
+// away, so anything acknowledged survives a JVM crash; a line torn by a crash mid-write is skipped
+// when the file is read back.
+// Pages are read through a sparse index holding the byte offset of every INDEX_INTERVAL-th record:
+// a page starts reading at the closest indexed record before it, so paging through the whole file
+// reads it about once instead of once per page. The index is extended by reads, over the lines
+// appended since the previous one.
+@Slf4j
+public class JsonLinesLog implements Closeable {
+
+    private static final int INDEX_INTERVAL = 1024;
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private BufferedWriter writer;
+    // Guarded by index
+    private final List<Long> index = new ArrayList<>();
+    private long indexedRecords;
+    private long indexedBytes;
+
+    public JsonLinesLog(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    public synchronized void append(Object record) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(record));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + file, e);
+        }
+    }
+
+    public synchronized <T> List<T> readAll(Class<T> type) {
+        List<T> records = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    records.add(objectMapper.readValue(line, type));
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable record in {}: {}", file, e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+        return records;
+    }
+
+    // Up to limit records after the first skip lines, streamed so only the requested page is held in
+    // memory. Not synchronized with appends: they are flushed line by line, so a reader never waits
+    // for a writer and at worst sees the line being written as torn and skips it.
+    public <T> List<T> read(Class<T> type, long skip, int limit) {
+        List<T> records = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+
+        try {
+            long start = 0;
+            long remaining = skip;
+            synchronized (index) {
+                updateIndex();
+                int entry = (int) Math.min(skip / INDEX_INTERVAL, index.size() - 1);
+                if (entry >= 0) {
+                    start = index.get(entry);
+                    remaining = skip - (long) entry * INDEX_INTERVAL;
+                }
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(Channels.newInputStream(channel.position(start)), StandardCharsets.UTF_8))) {
+                int taken = 0;
+                String line;
+                while (taken < limit && (line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    if (remaining > 0) {
+                        remaining--;
+                        continue;
+                    }
+                    taken++;
+                    try {
+                        records.add(objectMapper.readValue(line, type));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Skipping unreadable record in {}: {}", file, e.getOriginalMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+        return records;
+    }
+
+    // Number of complete records in the file; a torn last line is not counted
+    public long size() {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        synchronized (index) {
+            try {
+                updateIndex();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+            return indexedRecords;
+        }
+    }
+
+    public synchronized void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+        synchronized (index) {
+            resetIndex();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Scans the complete lines appended since the last scan; blank lines are not records, the same as
+    // when reading. A file that got shorter was replaced and is indexed again from the start.
+    private void updateIndex() throws IOException {
+        long length = Files.size(file);
+        if (length < indexedBytes) {
+            resetIndex();
+        }
+        if (length == indexedBytes) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(indexedBytes);
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = indexedBytes;
+            long lineStart = indexedBytes;
+            boolean blank = true;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == '\n') {
+                        if (!blank) {
+                            if (indexedRecords % INDEX_INTERVAL == 0) {
+                                index.add(lineStart);
+                            }
+                            indexedRecords++;
+                        }
+                        lineStart = position;
+                        blank = true;
+                    } else if (b != ' ' && b != '\t' && b != '\r') {
+                        blank = false;
+                    }
+                }
+                buffer.clear();
+            }
+            indexedBytes = lineStart;
+        }
+    }
+
+    private void resetIndex() {
+        index.clear();
+        indexedRecords = 0;
+        indexedBytes = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", file, e);
+            }
+            writer = null;
+        }
+    }
+}
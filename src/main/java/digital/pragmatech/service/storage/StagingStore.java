@@ -0,0 +1,217 @@
+package digital.pragmatech.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+// Append-only record store for data sets larger than the heap. Records are serialized to JSON and
+// written length-prefixed into fixed-size, memory-mapped segment files; an index file holds one
+// 8-byte entry (segment, position) per record, so any range can be read back directly. Mapped
+// pages belong to the OS page cache, so the heap only ever holds the records being read.
+// The store survives a restart: reopening the directory continues after the last indexed record.
+// Record data is written before its index entry, so a record torn by a crash is never visible and
+// is overwritten by the next append.
+@Slf4j
+public class StagingStore<T> implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String INDEX_FILE = "index";
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES;
+    private static final int READ_AHEAD = 256;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel index;
+    private long size;
+    private int writeSegment;
+    private int writePosition;
+
+    public StagingStore(Path directory, ObjectMapper objectMapper, Class<T> type) {
+        this(directory, objectMapper, type, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public StagingStore(Path directory, ObjectMapper objectMapper, Class<T> type, int segmentSize) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.segmentSize = segmentSize;
+    }
+
+    public synchronized void append(List<T> records) {
+        open();
+        ByteBuffer entries = ByteBuffer.allocate(records.size() * INDEX_ENTRY_SIZE);
+        try {
+            for (T record : records) {
+                byte[] bytes = objectMapper.writeValueAsBytes(record);
+                if (Integer.BYTES + bytes.length > segmentSize) {
+                    throw new IllegalArgumentException("Record of " + bytes.length + " bytes does not fit into a segment");
+                }
+                if (writePosition + Integer.BYTES + bytes.length > segmentSize) {
+                    writeSegment++;
+                    writePosition = 0;
+                }
+
+                MappedByteBuffer segment = segment(writeSegment);
+                segment.putInt(writePosition, bytes.length);
+                segment.put(writePosition + Integer.BYTES, bytes);
+                entries.putLong(((long) writeSegment << 32) | writePosition);
+                writePosition += Integer.BYTES + bytes.length;
+            }
+
+            entries.flip();
+            long indexPosition = size * INDEX_ENTRY_SIZE;
+            while (entries.hasRemaining()) {
+                indexPosition += index.write(entries, indexPosition);
+            }
+            size += records.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + directory, e);
+        }
+    }
+
+    public synchronized List<T> read(long offset, int count) {
+        open();
+        long end = Math.min(size, offset + count);
+        if (offset >= end) {
+            return List.of();
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate((int) (end - offset) * INDEX_ENTRY_SIZE);
+        try {
+            long indexPosition = offset * INDEX_ENTRY_SIZE;
+            while (entries.hasRemaining()) {
+                indexPosition += index.read(entries, indexPosition);
+            }
+            entries.flip();
+
+            List<T> records = new ArrayList<>((int) (end - offset));
+            while (entries.hasRemaining()) {
+                long entry = entries.getLong();
+                MappedByteBuffer segment = segment((int) (entry >>> 32));
+                int position = (int) entry;
+                byte[] bytes = new byte[segment.getInt(position)];
+                segment.get(position + Integer.BYTES, bytes);
+                records.add(objectMapper.readValue(bytes, type));
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read from " + directory, e);
+        }
+    }
+
+    // Sequential reader from the given record on, fetching a few hundred records at a time;
+    // records appended while reading are picked up
+    public Iterator<T> reader(long from) {
+        return new Iterator<>() {
+            private long next = from;
+            private List<T> chunk = List.of();
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position < chunk.size()) {
+                    return true;
+                }
+                chunk = read(next, READ_AHEAD);
+                position = 0;
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                next++;
+                return chunk.get(position++);
+            }
+        };
+    }
+
+    public synchronized long size() {
+        open();
+        return size;
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.clear();
+        if (index != null) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", directory, e);
+            }
+            index = null;
+        }
+    }
+
+    public synchronized void delete() {
+        close();
+        deleteDirectory(directory);
+    }
+
+    public static void deleteDirectory(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", directory, e);
+        }
+    }
+
+    // Opens lazily, recovering the write position from the last indexed record
+    private void open() {
+        if (index != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = index.size() / INDEX_ENTRY_SIZE;
+            if (size > 0) {
+                ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+                index.read(last, (size - 1) * INDEX_ENTRY_SIZE);
+                long entry = last.flip().getLong();
+                writeSegment = (int) (entry >>> 32);
+                int position = (int) entry;
+                writePosition = position + Integer.BYTES + segment(writeSegment).getInt(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + directory, e);
+        }
+    }
+
+    private MappedByteBuffer segment(int number) throws IOException {
+        while (segments.size() <= number) {
+            Path file = directory.resolve(String.format("segment-%05d", segments.size()));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            }
+        }
+        return segments.get(number);
+    }
+}
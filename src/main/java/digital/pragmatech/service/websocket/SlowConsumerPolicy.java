@@ -0,0 +1,119 @@
+package digital.pragmatech.service.websocket;
+
+import digital.pragmatech.config.MigrationConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps a slow client from holding frames it will only read late anyway. Each session counts the
+// frames handed to the outbound channel that have not been written to its socket yet; once that
+// reaches max-pending-frames, frames marked droppable are discarded before they are queued. Only
+// intermediate progress updates are marked: their content is superseded by the next update, and a
+// client that missed some sees a version gap and fetches a snapshot. Everything else, including
+// phase and state changes, is still delivered, and a client stuck for longer than the send time
+// limit is disconnected by Spring as before.
+@Slf4j
+@Component
+public class SlowConsumerPolicy implements ChannelInterceptor, WebSocketHandlerDecoratorFactory, MeterBinder {
+
+    public static final String DROPPABLE_HEADER = "droppable";
+
+    private final int maxPendingFrames;
+    private final ConcurrentHashMap<String, AtomicInteger> pendingBySession = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public SlowConsumerPolicy(MigrationConfig migrationConfig) {
+        this.maxPendingFrames = Math.max(1, migrationConfig.getWebsocket().getMaxPendingFrames());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        AtomicInteger pending = sessionId != null ? pendingBySession.get(sessionId) : null;
+        if (pending == null) {
+            return message;
+        }
+
+        if (pending.get() >= maxPendingFrames && isDroppable(message)) {
+            dropped.increment();
+            log.debug("Skipped progress frame for slow WebSocket session {}", sessionId);
+            return null;
+        }
+        pending.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                AtomicInteger pending = new AtomicInteger();
+                pendingBySession.put(session.getId(), pending);
+                super.afterConnectionEstablished(new CountingSession(session, pending));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                pendingBySession.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public long getDroppedFrames() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("migrator.websocket.dropped-frames", this, SlowConsumerPolicy::getDroppedFrames)
+                .description("Progress frames skipped for clients that fell behind")
+                .register(registry);
+    }
+
+    private boolean isDroppable(Message<?> message) {
+        return Boolean.parseBoolean(NativeMessageHeaderAccessor.getFirstNativeHeader(DROPPABLE_HEADER, message.getHeaders()));
+    }
+
+    // Sits beneath Spring's own session decorator, which passes frames down one at a time, so a frame
+    // counts as pending until the write to the socket has returned
+    private static final class CountingSession extends WebSocketSessionDecorator {
+
+        private final AtomicInteger pending;
+
+        private CountingSession(WebSocketSession session, AtomicInteger pending) {
+            super(session);
+            this.pending = pending;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                // Not every write comes through the outbound channel, so the count never goes below zero
+                pending.updateAndGet(count -> Math.max(0, count - 1));
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.fasterxml.jackson.databind.ObjectMapper;
 import digital.pragmatech.config.ApiConfiguration;
 import digital.pragmatech.dto.request.ApiKeysRequest;
+import digital.pragmatech.dto.response.SerializedStatus;
 import digital.pragmatech.model.common.MigrationStatus;
 import digital.pragmatech.model.mailchimp.MailchimpList;
 import digital.pragmatech.service.mailchimp.MailchimpService;
@@ -123,14 +124,13 @@ class ApiEndpointsIntegrationTest {
                 .andExpect(jsonPath("$.data").isMap());
 
         // Step 5: Start migration
-        when(progressTracker.isMigrationInProgress()).thenReturn(false);
-        when(migrationOrchestrator.startMigration())
-                .thenReturn(CompletableFuture.completedFuture("migration-123"));
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(false);
+        when(migrationOrchestrator.startMigration(any())).thenReturn("migration-123");
 
         mockMvc.perform(post("/api/migration/start"))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").value("migration-123"));
+                .andExpect(jsonPath("$.data.migrationId").value("migration-123"));
     }
 
     @Test
@@ -186,7 +186,7 @@ class ApiEndpointsIntegrationTest {
     @Test
     void shouldHandleConcurrentMigrationRequests() throws Exception {
         // Given - First migration is in progress
-        when(progressTracker.isMigrationInProgress()).thenReturn(true);
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(true);
 
         // When & Then
         mockMvc.perform(post("/api/migration/start"))
@@ -199,7 +199,7 @@ class ApiEndpointsIntegrationTest {
     void shouldProvideDetailedMigrationStatus() throws Exception {
         // Given
         MigrationStatus status = createDetailedMigrationStatus();
-        when(progressTracker.getCurrentStatus()).thenReturn(status);
+        when(progressTracker.getSerializedStatus(null)).thenReturn(SerializedStatus.of(status, objectMapper));
 
         // When & Then
         mockMvc.perform(get("/api/migration/status"))
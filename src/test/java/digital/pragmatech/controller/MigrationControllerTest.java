@@ -1,11 +1,22 @@
 package digital.pragmatech.controller;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.exception.MigrationException;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
 import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.migration.DeadLetterQueue;
 import digital.pragmatech.service.migration.MigrationOrchestrator;
 import digital.pragmatech.service.migration.MigrationProgressTracker;
 import org.junit.jupiter.api.Test;
@@ -13,9 +24,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
+import java.util.Optional;
 
 @WebMvcTest(MigrationController.class)
 class MigrationControllerTest {
@@ -23,6 +36,9 @@ class MigrationControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private MigrationOrchestrator migrationOrchestrator;
 
@@ -32,22 +48,23 @@ class MigrationControllerTest {
     @Test
     void shouldStartMigrationSuccessfully() throws Exception {
         // Given
-        when(progressTracker.isMigrationInProgress()).thenReturn(false);
-        when(migrationOrchestrator.startMigration())
-                .thenReturn(CompletableFuture.completedFuture("migration-123"));
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(false);
+        when(migrationOrchestrator.startMigration(any())).thenReturn("migration-123");
 
         // When & Then
         mockMvc.perform(post("/api/migration/start"))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/migration/status?migrationId=migration-123"))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Migration started successfully"))
-                .andExpect(jsonPath("$.data").value("migration-123"));
+                .andExpect(jsonPath("$.data.migrationId").value("migration-123"))
+                .andExpect(jsonPath("$.data.statusUrl").value("/api/migration/status?migrationId=migration-123"));
     }
 
     @Test
     void shouldReturnErrorWhenMigrationAlreadyInProgress() throws Exception {
         // Given
-        when(progressTracker.isMigrationInProgress()).thenReturn(true);
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(true);
 
         // When & Then
         mockMvc.perform(post("/api/migration/start"))
@@ -57,18 +74,48 @@ class MigrationControllerTest {
                 .andExpect(jsonPath("$.errorCode").value("MIGRATION_IN_PROGRESS"));
     }
 
+    @Test
+    void shouldOfferToResumeInterruptedMigration() throws Exception {
+        // Given
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(false);
+        when(migrationOrchestrator.findResumableMigration()).thenReturn(Optional.of("migration-123"));
+
+        // When & Then
+        mockMvc.perform(post("/api/migration/start"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errorCode").value("RESUMABLE_MIGRATION_FOUND"))
+                .andExpect(jsonPath("$.data.migrationId").value("migration-123"));
+        verify(migrationOrchestrator, never()).startMigration(any());
+    }
+
+    @Test
+    void shouldResumeInterruptedMigrationWhenRequested() throws Exception {
+        // Given
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(false);
+        when(migrationOrchestrator.findResumableMigration()).thenReturn(Optional.of("migration-123"));
+        when(migrationOrchestrator.resumeFromCheckpoint(eq("migration-123"), any())).thenReturn("migration-123");
+
+        // When & Then
+        mockMvc.perform(post("/api/migration/start").param("resume", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.migrationId").value("migration-123"));
+        verify(migrationOrchestrator, never()).startMigration(any());
+    }
+
     @Test
     void shouldHandleMigrationStartFailure() throws Exception {
         // Given
-        when(progressTracker.isMigrationInProgress()).thenReturn(false);
-        when(migrationOrchestrator.startMigration())
-                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("API connection failed")));
+        when(progressTracker.isAtMigrationCapacity()).thenReturn(false);
+        when(migrationOrchestrator.startMigration(any()))
+                .thenThrow(new RuntimeException("API connection failed"));
 
         // When & Then
         mockMvc.perform(post("/api/migration/start"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(false))
-                .andExpect(jsonPath("$.message").value("Failed to start migration: java.lang.RuntimeException: API connection failed"))
+                .andExpect(jsonPath("$.message").value("Failed to start migration: API connection failed"))
                 .andExpect(jsonPath("$.errorCode").value("MIGRATION_START_FAILED"));
     }
 
@@ -76,11 +123,12 @@ class MigrationControllerTest {
     void shouldGetMigrationStatusSuccessfully() throws Exception {
         // Given
         MigrationStatus status = createMockMigrationStatus();
-        when(progressTracker.getCurrentStatus()).thenReturn(status);
+        when(progressTracker.getSerializedStatus(null)).thenReturn(SerializedStatus.of(status, objectMapper));
 
         // When & Then
         mockMvc.perform(get("/api/migration/status"))
                 .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.id").value("migration-123"))
                 .andExpect(jsonPath("$.data.state").value("IN_PROGRESS"))
@@ -90,10 +138,24 @@ class MigrationControllerTest {
                 .andExpect(jsonPath("$.data.progress.processedItems").value(455));
     }
 
+    @Test
+    void shouldReturnNotModifiedWhenStatusIsUnchanged() throws Exception {
+        // Given
+        SerializedStatus status = SerializedStatus.of(createMockMigrationStatus(), objectMapper);
+        when(progressTracker.getSerializedStatus("migration-123")).thenReturn(status);
+
+        // When & Then
+        mockMvc.perform(get("/api/migration/status")
+                        .param("migrationId", "migration-123")
+                        .header("If-None-Match", status.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void shouldReturnErrorWhenNoMigrationInProgress() throws Exception {
         // Given
-        when(progressTracker.getCurrentStatus()).thenReturn(null);
+        when(progressTracker.getSerializedStatus(null)).thenReturn(null);
 
         // When & Then
         mockMvc.perform(get("/api/migration/status"))
@@ -103,6 +165,28 @@ class MigrationControllerTest {
                 .andExpect(jsonPath("$.errorCode").value("NO_MIGRATION"));
     }
 
+    @Test
+    void shouldStreamProgressFromLastEventId() throws Exception {
+        // Given
+        when(progressTracker.getCurrentStatus()).thenReturn(createMockMigrationStatus());
+        when(progressTracker.streamProgress("migration-123", 7L)).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/migration/progress/stream").header("Last-Event-ID", "7"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenStreamingUnknownMigration() throws Exception {
+        // Given
+        when(progressTracker.getStatus("unknown")).thenReturn(null);
+
+        // When & Then
+        mockMvc.perform(get("/api/migration/progress/stream").param("migrationId", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldPauseMigrationSuccessfully() throws Exception {
         // Given
@@ -230,30 +314,75 @@ class MigrationControllerTest {
     }
 
     @Test
-    void shouldGetMigrationHistoryWithCurrentMigration() throws Exception {
+    void shouldReplayDeadLetters() throws Exception {
         // Given
-        MigrationStatus status = createMockMigrationStatus();
-        when(progressTracker.getCurrentStatus()).thenReturn(status);
+        when(migrationOrchestrator.replayDeadLetters(eq("migration-123"), any()))
+                .thenReturn(new DeadLetterQueue.ReplayResult(3, 1));
+
+        // When & Then
+        mockMvc.perform(post("/api/migration/dead-letters/replay").param("migrationId", "migration-123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.replayed").value(3))
+                .andExpect(jsonPath("$.data.rejected").value(1));
+    }
+
+    @Test
+    void shouldRejectDeadLettersOfUnknownMigration() throws Exception {
+        // Given
+        when(migrationOrchestrator.getDeadLetters("../checkpoints/migration-123"))
+                .thenThrow(new MigrationException("NO_MIGRATION", "No migration found"));
+
+        // When & Then
+        mockMvc.perform(get("/api/migration/dead-letters").param("migrationId", "../checkpoints/migration-123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errorCode").value("NO_MIGRATION"));
+    }
+
+    @Test
+    void shouldRejectErrorsOfIdOutsideKnownMigrations() throws Exception {
+        // Given
+        when(migrationOrchestrator.isKnownMigration("../history/index")).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(get("/api/migration/errors").param("migrationId", "../history/index"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errorCode").value("NO_MIGRATION"));
+        verify(progressTracker, never()).getErrors(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldGetRecordedRunsNewestFirst() throws Exception {
+        // Given
+        MigrationHistoryEntry entry = MigrationHistoryEntry.of(createMockMigrationStatus(), LocalDateTime.now());
+        when(progressTracker.getHistory(null, 0, 20)).thenReturn(new PageResponse<>(List.of(entry), 0, 20, false));
 
         // When & Then
         mockMvc.perform(get("/api/migration/history"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Migration history retrieved"))
-                .andExpect(jsonPath("$.data.id").value("migration-123"));
+                .andExpect(jsonPath("$.data.content[0].migrationId").value("migration-123"))
+                .andExpect(jsonPath("$.data.content[0].statistics.totalSubscribers").value(800))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
     }
 
     @Test
-    void shouldGetMigrationHistoryWithNoMigration() throws Exception {
+    void shouldGetHistoryOfOneMigrationPageByPage() throws Exception {
         // Given
-        when(progressTracker.getCurrentStatus()).thenReturn(null);
+        when(progressTracker.getHistory("migration-123", 1, 5)).thenReturn(new PageResponse<>(List.of(), 1, 5, false));
 
         // When & Then
-        mockMvc.perform(get("/api/migration/history"))
+        mockMvc.perform(get("/api/migration/history")
+                        .param("migrationId", "migration-123")
+                        .param("page", "1")
+                        .param("size", "5"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("No migration history found"))
-                .andExpect(jsonPath("$.data").isEmpty());
+                .andExpect(jsonPath("$.data.page").value(1))
+                .andExpect(jsonPath("$.data.content").isEmpty());
     }
 
     private MigrationStatus createMockMigrationStatus() {
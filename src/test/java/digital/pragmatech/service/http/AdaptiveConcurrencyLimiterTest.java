@@ -0,0 +1,124 @@
+package digital.pragmatech.service.http;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void shouldGrowLimitAfterAWindowOfSuccessfulRequests() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("MailerLite", 2, 1, 8, 1.0, 0.5, 1000.0);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> "ok");
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldHalveLimitWhenRequestIsRateLimited() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("MailerLite", 8, 1, 8, 1.0, 0.5, 1000.0);
+
+        // When
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+        })).isInstanceOf(HttpClientErrorException.class);
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldNotShrinkLimitForOrdinaryClientErrors() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("MailerLite", 4, 1, 8, 1.0, 0.5, 1000.0);
+
+        // When
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+        })).isInstanceOf(HttpClientErrorException.class);
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotShrinkLimitWhenCallWasAbortedByInterrupt() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("MailerLite", 4, 1, 8, 1.0, 0.5, 1000.0);
+
+        // When
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> limiter.execute(() -> {
+                throw new ResourceAccessException("Request was interrupted");
+            })).isInstanceOf(ResourceAccessException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldRefuseSlotsBeyondTheCurrentLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Mailchimp", 2, 1, 10, 1.0, 0.5, 1000.0);
+
+        // When
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCompareLatencyOnlyWithinTheSameEndpointClass() {
+        // Given small reference lookups have set a low baseline
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Mailchimp", 4, 1, 10, 1.0, 0.5, 2.0);
+        for (int i = 0; i < 20; i++) {
+            complete(limiter, "GET lists", Duration.ofMillis(10));
+        }
+        int before = limiter.getLimit();
+
+        // When pages of members take fifty times as long
+        for (int i = 0; i < 5; i++) {
+            complete(limiter, "GET members", Duration.ofMillis(500));
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(before);
+
+        // When a page of members is far slower than the pages before it
+        complete(limiter, "GET members", Duration.ofSeconds(5));
+
+        // Then
+        assertThat(limiter.getLimit()).isLessThan(before);
+    }
+
+    private void complete(AdaptiveConcurrencyLimiter limiter, String endpointClass, Duration latency) {
+        limiter.acquire();
+        limiter.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, latency.toNanos(), endpointClass);
+    }
+}
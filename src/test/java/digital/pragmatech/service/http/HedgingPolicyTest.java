@@ -0,0 +1,152 @@
+package digital.pragmatech.service.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class HedgingPolicyTest {
+
+    private final HedgingPolicy policy = new HedgingPolicy("Mailchimp", 90.0, Duration.ofMillis(20), 50, 5);
+
+    @Test
+    void shouldNotHedgeBeforeEnoughSamplesWereRecorded() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        // When
+        String result = policy.execute("GET members", () -> "page", limiter);
+
+        // Then
+        assertThat(result).isEqualTo("page");
+        assertThat(policy.hedgeDelay("GET members")).isNull();
+        assertThat(policy.getHedgesSent()).isZero();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldReturnHedgeWhenPrimaryIsSlow() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+        warmUp(limiter);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        long start = System.nanoTime();
+        String result = policy.execute("GET members", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "primary";
+            }
+            return "hedge";
+        }, limiter);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertThat(result).isEqualTo("hedge");
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(1));
+        assertThat(policy.getHedgesSent()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipHedgeWhenConnectionBudgetIsExhausted() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        warmUp(limiter);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = policy.execute("GET members", () -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            return "primary";
+        }, limiter);
+
+        // Then
+        assertThat(result).isEqualTo("primary");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(policy.getHedgesSent()).isZero();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldInterruptLosingRequestAndReleaseItsSlot() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+        warmUp(limiter);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean primaryInterrupted = new AtomicBoolean();
+
+        // When
+        String result = policy.execute("GET members", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    primaryInterrupted.set(true);
+                    throw new IllegalStateException("interrupted", e);
+                }
+                return "primary";
+            }
+            return "hedge";
+        }, limiter);
+
+        // Then
+        assertThat(result).isEqualTo("hedge");
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> {
+            assertThat(primaryInterrupted).isTrue();
+            assertThat(limiter.getInFlight()).isZero();
+        });
+    }
+
+    @Test
+    void shouldTrackLatencyPerEndpointClass() {
+        // Given fast lookups of one resource
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+        warmUp(limiter, "GET lists");
+
+        // When & Then a resource without samples of its own is not hedged
+        assertThat(policy.hedgeDelay("GET lists")).isNotNull();
+        assertThat(policy.hedgeDelay("GET members")).isNull();
+
+        // When
+        AtomicInteger attempts = new AtomicInteger();
+        String result = policy.execute("GET members", () -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            return "page";
+        }, limiter);
+
+        // Then
+        assertThat(result).isEqualTo("page");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(policy.getHedgesSent()).isZero();
+    }
+
+    private void warmUp(AdaptiveConcurrencyLimiter limiter) {
+        warmUp(limiter, "GET members");
+    }
+
+    private void warmUp(AdaptiveConcurrencyLimiter limiter, String endpointClass) {
+        for (int i = 0; i < 5; i++) {
+            policy.execute(endpointClass, () -> "warm-up", limiter);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int slots) {
+        // Fixed limit so the test only exercises hedging, not limit adaptation
+        return new AdaptiveConcurrencyLimiter("Mailchimp", slots, slots, slots, 1.0, 0.5, 1000.0);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package digital.pragmatech.service.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final ResponseCache cache = new ResponseCache(2, Map.of(
+            "lists", Duration.ofMinutes(10),
+            "segments", Duration.ofMinutes(5),
+            "groups", Duration.ofMinutes(1)
+    ), clock);
+
+    @Test
+    void shouldOnlyCacheResourcesWithConfiguredTtl() {
+        assertThat(cache.ttlFor("/lists?count=1000")).isEqualTo(Duration.ofMinutes(10));
+        assertThat(cache.ttlFor("/lists/{listId}/segments?count=1000")).isEqualTo(Duration.ofMinutes(5));
+        assertThat(cache.ttlFor("/lists/{listId}/members?count={count}&offset={offset}")).isNull();
+        assertThat(cache.ttlFor("/")).isNull();
+    }
+
+    @Test
+    void shouldExpireEntriesButKeepThemForRevalidation() {
+        // Given
+        cache.put("groups", "/groups", "body", "\"v1\"", Duration.ofMinutes(1));
+
+        // When
+        clock.advance(Duration.ofMinutes(2));
+        ResponseCache.Entry entry = cache.get("groups");
+
+        // Then
+        assertThat(cache.isFresh(entry)).isFalse();
+        assertThat(entry.etag()).isEqualTo("\"v1\"");
+
+        cache.refresh("groups", entry, Duration.ofMinutes(1));
+        assertThat(cache.isFresh(cache.get("groups"))).isTrue();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        // Given
+        cache.put("a", "/lists", "a", null, Duration.ofMinutes(10));
+        cache.put("b", "/groups", "b", null, Duration.ofMinutes(10));
+        cache.get("a");
+
+        // When
+        cache.put("c", "/lists/{listId}/segments", "c", null, Duration.ofMinutes(10));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void shouldInvalidateEntriesBelowWrittenEndpoint() {
+        // Given
+        cache.put("groups", "/groups", "groups", null, Duration.ofMinutes(1));
+        cache.put("lists", "/lists?count=1000", "lists", null, Duration.ofMinutes(10));
+
+        // When
+        cache.invalidate("/groups/{groupId}/import-subscribers");
+
+        // Then
+        assertThat(cache.get("groups")).isNull();
+        assertThat(cache.get("lists")).isNotNull();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
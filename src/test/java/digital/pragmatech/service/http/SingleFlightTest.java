@@ -0,0 +1,79 @@
+package digital.pragmatech.service.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void shouldShareOneCallBetweenConcurrentCallers() throws Exception {
+        // Given
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("/lists", () -> {
+                invocations.incrementAndGet();
+                await(release);
+                return "lists";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("lists");
+        }
+        assertThat(invocations.get()).isEqualTo(1);
+        assertThat(singleFlight.getInFlightCount()).isZero();
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldNotRetainResultsOnceCallCompleted() {
+        // Given
+        AtomicInteger invocations = new AtomicInteger();
+
+        // When
+        singleFlight.execute("/groups", invocations::incrementAndGet);
+        singleFlight.execute("/groups", invocations::incrementAndGet);
+
+        // Then
+        assertThat(invocations.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPropagateFailureAndAllowRetry() {
+        // When & Then
+        assertThatThrownBy(() -> singleFlight.execute("/me", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(singleFlight.execute("/me", () -> "ok")).isEqualTo("ok");
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
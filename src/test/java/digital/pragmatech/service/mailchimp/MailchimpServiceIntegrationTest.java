@@ -3,8 +3,10 @@ package digital.pragmatech.service.mailchimp;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import digital.pragmatech.config.ApiConfiguration;
+import digital.pragmatech.config.MigrationConfig;
 import digital.pragmatech.model.mailchimp.MailchimpList;
 import digital.pragmatech.model.mailchimp.MailchimpMember;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,7 +47,8 @@ class MailchimpServiceIntegrationTest {
         // Override the base URL to use our WireMock server
         apiConfiguration.getMailchimp().setBaseUrl("http://localhost:8089/3.0");
         
-        MailchimpApiClient apiClient = new MailchimpApiClient(restClientBuilder, apiConfiguration);
+        MailchimpApiClient apiClient = new MailchimpApiClient(restClientBuilder, apiConfiguration, new MigrationConfig(),
+                new ApiConcurrencyLimiters(new MigrationConfig()));
         mailchimpService = new MailchimpService(apiClient);
     }
 
@@ -0,0 +1,144 @@
+package digital.pragmatech.service.mailchimp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SourceSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    private Clock clock;
+    private SourceSnapshot snapshot;
+    private AtomicInteger apiCalls;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(Instant.parse("2026-01-01T10:00:00Z"));
+        snapshot = new SourceSnapshot(directory, new ObjectMapper().findAndRegisterModules(), Duration.ofMinutes(30), 30,
+                true, clock);
+        apiCalls = new AtomicInteger();
+    }
+
+    @Test
+    void shouldExtractMembersOnceForAnalyzeAndMigrate() {
+        // Given
+        List<MailchimpMember> analyzed = readAll(20);
+
+        // When
+        List<MailchimpMember> migrated = readAll(20);
+
+        // Then
+        assertThat(apiCalls.get()).isEqualTo(3);
+        assertThat(migrated).extracting(MailchimpMember::getEmailAddress)
+                .containsExactlyElementsOf(analyzed.stream().map(MailchimpMember::getEmailAddress).toList());
+    }
+
+    @Test
+    void shouldSpillMembersBeyondHeapLimitToDisk() throws Exception {
+        // Given
+        readAll(20);
+
+        // When
+        List<MailchimpMember> spanning = snapshot.membersPage("list1", 20, 20, this::unexpectedApiCall);
+
+        // Then
+        assertThat(spanning).extracting(MailchimpMember::getEmailAddress)
+                .containsExactly(IntStream.range(20, 40).mapToObj(i -> "member" + i + "@example.com").toArray(String[]::new));
+        try (var files = Files.walk(directory)) {
+            assertThat(files.filter(file -> file.endsWith(Path.of("list1", "index")))).hasSize(1);
+        }
+    }
+
+    @Test
+    void shouldReadMembersBeyondHeapLimitFromApiWhenNotSpilling() throws Exception {
+        // Given
+        snapshot = new SourceSnapshot(directory, new ObjectMapper().findAndRegisterModules(), Duration.ofMinutes(30), 30,
+                false, clock);
+        readAll(20);
+
+        // When
+        List<MailchimpMember> migrated = readAll(20);
+
+        // Then
+        assertThat(migrated).hasSize(45);
+        assertThat(apiCalls.get()).isEqualTo(5);
+        try (var files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldReadFromApiWhenNotContinuingCapturedPrefix() {
+        // When
+        List<MailchimpMember> page = snapshot.membersPage("list1", 20, 20, () -> page(20, 20));
+        snapshot.membersPage("list1", 20, 20, () -> page(20, 20));
+
+        // Then
+        assertThat(page).hasSize(20);
+        assertThat(apiCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExtractAgainOnceSessionHasExpired() {
+        // Given
+        readAll(20);
+        when(clock.instant()).thenReturn(Instant.parse("2026-01-01T10:31:00Z"));
+
+        // When
+        readAll(20);
+
+        // Then
+        assertThat(apiCalls.get()).isEqualTo(6);
+    }
+
+    // Reads list1 (45 members) page by page the way the migration does
+    private List<MailchimpMember> readAll(int pageSize) {
+        List<MailchimpMember> members = new ArrayList<>();
+        int offset = 0;
+        boolean hasMore = true;
+        while (hasMore) {
+            int from = offset;
+            List<MailchimpMember> page = snapshot.membersPage("list1", from, pageSize, () -> page(from, pageSize));
+            members.addAll(page);
+            offset += page.size();
+            hasMore = page.size() == pageSize;
+        }
+        return members;
+    }
+
+    private List<MailchimpMember> page(int offset, int count) {
+        apiCalls.incrementAndGet();
+        return IntStream.range(offset, Math.min(offset + count, 45))
+                .mapToObj(i -> {
+                    MailchimpMember member = new MailchimpMember();
+                    member.setId("member" + i);
+                    member.setEmailAddress("member" + i + "@example.com");
+                    member.setStatus("subscribed");
+                    return member;
+                })
+                .toList();
+    }
+
+    private List<MailchimpMember> unexpectedApiCall() {
+        throw new AssertionError("Members should have been read from the snapshot");
+    }
+}
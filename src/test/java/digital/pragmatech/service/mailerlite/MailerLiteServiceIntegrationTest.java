@@ -3,9 +3,11 @@ package digital.pragmatech.service.mailerlite;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import digital.pragmatech.config.ApiConfiguration;
+import digital.pragmatech.config.MigrationConfig;
 import digital.pragmatech.model.common.Subscriber;
 import digital.pragmatech.model.mailerlite.MailerLiteGroup;
 import digital.pragmatech.model.mailerlite.MailerLiteSubscriber;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
@@ -45,7 +48,8 @@ class MailerLiteServiceIntegrationTest {
         // Override the base URL to use our WireMock server
         apiConfiguration.getMailerlite().setBaseUrl("http://localhost:8090/api");
         
-        MailerLiteApiClient apiClient = new MailerLiteApiClient(restClientBuilder, apiConfiguration);
+        MailerLiteApiClient apiClient = new MailerLiteApiClient(restClientBuilder, apiConfiguration, new MigrationConfig(),
+                new ApiConcurrencyLimiters(new MigrationConfig()));
         mailerLiteService = new MailerLiteService(apiClient);
     }
 
@@ -161,6 +165,47 @@ class MailerLiteServiceIntegrationTest {
         assertThat(group2.getActiveCount()).isEqualTo(25);
     }
 
+    @Test
+    void getAllGroupsRevalidatesExpiredCacheEntryWithETag() throws Exception {
+        // Given
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getCache().getTtl().put("groups", Duration.ofMillis(1));
+        MailerLiteService cachingService = new MailerLiteService(
+                new MailerLiteApiClient(restClientBuilder, apiConfiguration, migrationConfig,
+                        new ApiConcurrencyLimiters(migrationConfig)));
+
+        stubFor(get(urlEqualTo("/api/groups"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"groups-v1\"")
+                        .withBody("""
+                            {
+                                "data": [
+                                    {
+                                        "id": "group1",
+                                        "name": "Newsletter Subscribers"
+                                    }
+                                ]
+                            }
+                            """)));
+        stubFor(get(urlEqualTo("/api/groups"))
+                .withHeader("If-None-Match", equalTo("\"groups-v1\""))
+                .willReturn(aResponse().withStatus(304)));
+
+        // When
+        List<MailerLiteGroup> first = cachingService.getAllGroups();
+        Thread.sleep(10);
+        List<MailerLiteGroup> second = cachingService.getAllGroups();
+
+        // Then
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).getId()).isEqualTo("group1");
+        verify(1, getRequestedFor(urlEqualTo("/api/groups")).withHeader("If-None-Match", equalTo("\"groups-v1\"")));
+    }
+
     @Test
     void createOrUpdateSubscriber() {
         // Given
@@ -255,9 +300,11 @@ class MailerLiteServiceIntegrationTest {
                             }
                             """)));
 
-        // When & Then - should not throw exception
-        mailerLiteService.bulkImportSubscribers(subscribers, groupId);
+        // When
+        String importId = mailerLiteService.bulkImportSubscribers(subscribers, groupId);
         
+        // Then
+        assertThat(importId).isEqualTo("import123");
         // Verify the request was made with correct data
         verify(postRequestedFor(urlEqualTo("/api/groups/" + groupId + "/import-subscribers"))
                 .withRequestBody(containing("user1@example.com"))
@@ -0,0 +1,82 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckpointStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private CheckpointStore store;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getStorage().setDirectory(directory.toString());
+        store = new CheckpointStore(migrationConfig, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void shouldRestoreProgressAfterRestart() {
+        // Given
+        MigrationCheckpoint checkpoint = store.create("migration-1");
+        checkpoint.groupCreated("vip", "group-1");
+        checkpoint.phaseCompleted(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
+        checkpoint.batchAcknowledged("list1", 500);
+        checkpoint.batchAcknowledged("list1", 1000);
+        checkpoint.importSubmitted("import-1");
+        checkpoint.close();
+
+        // When
+        MigrationCheckpoint restored = store.load("migration-1").orElseThrow();
+
+        // Then
+        assertThat(store.findAll()).containsExactly("migration-1");
+        assertThat(restored.isPhaseCompleted(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION)).isTrue();
+        assertThat(restored.isPhaseCompleted(MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION)).isFalse();
+        assertThat(restored.getTagToGroupMapping()).containsEntry("vip", "group-1");
+        assertThat(restored.offsetFor("list1")).isEqualTo(1000);
+        assertThat(restored.getImportIds()).containsExactly("import-1");
+    }
+
+    @Test
+    void shouldIgnoreRecordTornByCrashDuringWrite() throws Exception {
+        // Given
+        MigrationCheckpoint checkpoint = store.create("migration-1");
+        checkpoint.batchAcknowledged("list1", 500);
+        checkpoint.close();
+        Files.writeString(directory.resolve("checkpoints/migration-1.jsonl"), "{\"type\":\"BATCH_ACK",
+                StandardOpenOption.APPEND);
+
+        // When
+        MigrationCheckpoint restored = store.load("migration-1").orElseThrow();
+
+        // Then
+        assertThat(restored.offsetFor("list1")).isEqualTo(500);
+    }
+
+    @Test
+    void shouldForgetDiscardedMigration() {
+        // Given
+        MigrationCheckpoint checkpoint = store.create("migration-1");
+        checkpoint.batchAcknowledged("list1", 500);
+
+        // When
+        checkpoint.discard();
+
+        // Then
+        assertThat(store.findAll()).isEmpty();
+        assertThat(store.load("migration-1")).isEmpty();
+    }
+}
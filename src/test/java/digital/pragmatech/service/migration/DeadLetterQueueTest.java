@@ -0,0 +1,137 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.exception.ApiException;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class DeadLetterQueueTest {
+
+    @TempDir
+    private Path directory;
+
+    private MigrationConfig migrationConfig;
+    private DeadLetterQueue deadLetterQueue;
+    private final Set<String> poison = new HashSet<>();
+    private final List<String> imported = new ArrayList<>();
+    private int importCalls;
+
+    @BeforeEach
+    void setUp() {
+        migrationConfig = new MigrationConfig();
+        migrationConfig.getStorage().setDirectory(directory.toString());
+        deadLetterQueue = new DeadLetterQueue(migrationConfig, new ObjectMapper().findAndRegisterModules(),
+                mock(MigrationProgressTracker.class));
+    }
+
+    @Test
+    void shouldIsolateRejectedMembersByBisection() {
+        // Given
+        poison.add("member17@example.com");
+
+        // When
+        int rejected = deadLetterQueue.importIsolatingFailures(run(), members(64), this::importMembers);
+
+        // Then
+        assertThat(rejected).isEqualTo(1);
+        assertThat(imported).hasSize(63).doesNotContain("member17@example.com");
+        // One failing request per level of halving plus one successful sibling per level
+        assertThat(importCalls).isLessThanOrEqualTo(1 + 2 * 6);
+        assertThat(deadLetterQueue.list("m1")).extracting(deadLetter -> deadLetter.member().getEmailAddress())
+                .containsExactly("member17@example.com");
+    }
+
+    @Test
+    void shouldDeadLetterWholeBatchWhenFailureIsNotCausedByItsContent() {
+        // Given
+        List<MailchimpMember> batch = members(10);
+
+        // When
+        int rejected = deadLetterQueue.importIsolatingFailures(run(), batch, members -> {
+            importCalls++;
+            throw new ApiException("MailerLite", HttpStatus.SERVICE_UNAVAILABLE, "unavailable");
+        });
+
+        // Then
+        assertThat(rejected).isEqualTo(10);
+        assertThat(importCalls).isEqualTo(1);
+        assertThat(deadLetterQueue.list("m1")).hasSize(10);
+    }
+
+    @Test
+    void shouldKeepOnlyMembersRejectedAgainAfterReplay() {
+        // Given
+        poison.addAll(List.of("member3@example.com", "member5@example.com"));
+        deadLetterQueue.importIsolatingFailures(run(), members(8), this::importMembers);
+        deadLetterQueue.close("m1");
+        poison.remove("member3@example.com");
+        imported.clear();
+
+        // When
+        DeadLetterQueue.ReplayResult result = deadLetterQueue.replay(run(), this::importMembers);
+
+        // Then
+        assertThat(result.replayed()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(imported).containsExactly("member3@example.com");
+        assertThat(deadLetterQueue.list("m1")).extracting(deadLetter -> deadLetter.member().getEmailAddress())
+                .containsExactly("member5@example.com");
+    }
+
+    @Test
+    void shouldNeverReachFilesOutsideDeadLetterDirectory() throws Exception {
+        // Given a journal of another store next to the dead letters
+        Path checkpoint = Files.createDirectories(directory.resolve("checkpoints")).resolve("m1.jsonl");
+        Files.writeString(checkpoint, "{\"type\":\"STARTED\"}\n");
+
+        // When & Then
+        assertThatThrownBy(() -> deadLetterQueue.list("../checkpoints/m1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> deadLetterQueue.replay(run("../checkpoints/m1"), this::importMembers))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(checkpoint).exists();
+    }
+
+    // Rejects the whole request if it contains a poison member, like a validation error would
+    private void importMembers(List<MailchimpMember> members) {
+        importCalls++;
+        if (members.stream().anyMatch(member -> poison.contains(member.getEmailAddress()))) {
+            throw new ApiException("MailerLite", HttpStatus.UNPROCESSABLE_ENTITY, "invalid subscriber");
+        }
+        members.forEach(member -> imported.add(member.getEmailAddress()));
+    }
+
+    private MigrationRun run() {
+        return run("m1");
+    }
+
+    private MigrationRun run(String migrationId) {
+        return new MigrationRun(migrationId, null, null, MigrationCheckpoint.inMemory(migrationId), new MigrationControl(),
+                MigrationStaging.disabled());
+    }
+
+    private List<MailchimpMember> members(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            MailchimpMember member = new MailchimpMember();
+            member.setId("member" + i);
+            member.setEmailAddress("member" + i + "@example.com");
+            member.setStatus("subscribed");
+            return member;
+        }).toList();
+    }
+}
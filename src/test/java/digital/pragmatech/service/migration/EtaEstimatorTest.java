@@ -0,0 +1,94 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EtaEstimatorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private EtaEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.setBatchSize(100);
+        migrationConfig.getRateLimit().getMailerlite().setRequestsPerMinute(120);
+        migrationConfig.getProgress().setThroughputSmoothing(Duration.ofSeconds(10));
+        estimator = new EtaEstimator(migrationConfig);
+    }
+
+    @Test
+    void shouldEstimateFromObservedThroughput() {
+        // Given
+        estimator.estimateSeconds(phases(running(10_000, 0)), 0);
+
+        // When
+        long eta = estimator.estimateSeconds(phases(running(10_000, 1_000)), 10 * SECOND);
+
+        // Then 100 items per second with 9,000 to go
+        assertThat(eta).isEqualTo(90);
+    }
+
+    @Test
+    void shouldSmoothOutSingleFastInterval() {
+        // Given 100 items per second for a while
+        estimator.estimateSeconds(phases(running(100_000, 0)), 0);
+        estimator.estimateSeconds(phases(running(100_000, 1_000)), 10 * SECOND);
+
+        // When the next second runs ten times as fast
+        long eta = estimator.estimateSeconds(phases(running(100_000, 2_000)), 11 * SECOND);
+
+        // Then the estimate moves only part of the way
+        double smoothedRate = 100 + (1 - Math.exp(-0.1)) * (1_000 - 100);
+        assertThat(eta).isEqualTo((long) Math.ceil(98_000 / smoothedRate));
+    }
+
+    @Test
+    void shouldBoundEstimateByRemainingRateLimitBudget() {
+        // Given no throughput observed yet, 300 tags and 1,000 subscribers (10 batches) to go
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases = phases(running(1_000, 0));
+        phases.put(MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, running(300, 0));
+
+        // When
+        long eta = estimator.estimateSeconds(phases, 0);
+
+        // Then 310 requests at 2 per second
+        assertThat(eta).isEqualTo(155);
+    }
+
+    @Test
+    void shouldReportNothingRemainingForFinishedPhases() {
+        // Given
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases = phases(
+                running(500, 500).toBuilder().state(MigrationStatus.MigrationState.COMPLETED).build());
+
+        // When
+        long eta = estimator.estimateSeconds(phases, 0);
+
+        // Then
+        assertThat(eta).isZero();
+    }
+
+    private Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases(MigrationStatus.PhaseProgress subscribers) {
+        Map<MigrationStatus.MigrationPhase, MigrationStatus.PhaseProgress> phases = new EnumMap<>(MigrationStatus.MigrationPhase.class);
+        phases.put(MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION, subscribers);
+        return phases;
+    }
+
+    private MigrationStatus.PhaseProgress running(int total, int processed) {
+        return MigrationStatus.PhaseProgress.builder()
+                .state(MigrationStatus.MigrationState.IN_PROGRESS)
+                .totalItems(total)
+                .processedItems(processed)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairBatchSchedulerTest {
+
+    private FairBatchScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getPipeline().setImportConcurrency(1);
+        scheduler = new FairBatchScheduler(migrationConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldServeMigrationsRoundRobin() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(12);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        scheduler.submit("blocker", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            scheduler.submit("large", task("large", executed, done));
+        }
+        scheduler.submit("small", task("small", executed, done));
+        scheduler.submit("small", task("small", executed, done));
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed.subList(0, 4)).containsExactly("large", "small", "large", "small");
+    }
+
+    @Test
+    void shouldOnlyInterruptBatchesOfTheGivenMigration() throws Exception {
+        // Given
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getPipeline().setImportConcurrency(2);
+        scheduler.shutdown();
+        scheduler = new FairBatchScheduler(migrationConfig);
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<String> aborted = new CopyOnWriteArrayList<>();
+        for (String migrationId : List.of("m1", "m2")) {
+            scheduler.submit(migrationId, () -> {
+                running.countDown();
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    aborted.add(migrationId);
+                    interrupted.countDown();
+                }
+            });
+        }
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        scheduler.interrupt("m1");
+
+        // Then
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(aborted).containsExactly("m1");
+    }
+
+    private Runnable task(String migrationId, List<String> executed, CountDownLatch done) {
+        return () -> {
+            executed.add(migrationId);
+            done.countDown();
+        };
+    }
+}
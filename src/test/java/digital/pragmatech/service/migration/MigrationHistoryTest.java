@@ -0,0 +1,113 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MigrationHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private MigrationConfig migrationConfig;
+    private MigrationHistory history;
+
+    @BeforeEach
+    void setUp() {
+        migrationConfig = new MigrationConfig();
+        migrationConfig.getStorage().setDirectory(directory.toString());
+        history = new MigrationHistory(migrationConfig, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        history.close();
+    }
+
+    @Test
+    void shouldPageLatestEntryOfEachRunNewestFirst() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            history.record(status("m" + i, START.plusMinutes(i), MigrationStatus.MigrationState.IN_PROGRESS));
+            history.record(status("m" + i, START.plusMinutes(i), MigrationStatus.MigrationState.COMPLETED));
+        }
+
+        // When
+        PageResponse<MigrationHistoryEntry> firstPage = history.runs(0, 2);
+        PageResponse<MigrationHistoryEntry> lastPage = history.runs(2, 2);
+
+        // Then
+        assertThat(firstPage.getContent()).extracting(MigrationHistoryEntry::getMigrationId).containsExactly("m4", "m3");
+        assertThat(firstPage.getContent()).extracting(MigrationHistoryEntry::getState)
+                .containsOnly(MigrationStatus.MigrationState.COMPLETED);
+        assertThat(firstPage.isHasNext()).isTrue();
+        assertThat(lastPage.getContent()).extracting(MigrationHistoryEntry::getMigrationId).containsExactly("m0");
+        assertThat(lastPage.isHasNext()).isFalse();
+        assertThat(history.runs(3, 2).getContent()).isEmpty();
+    }
+
+    @Test
+    void shouldListEveryTransitionOfOneMigrationAcrossItsRuns() {
+        // Given the migration is run again under the same id
+        history.record(status("m1", START, MigrationStatus.MigrationState.IN_PROGRESS));
+        history.record(status("other", START.plusMinutes(1), MigrationStatus.MigrationState.IN_PROGRESS));
+        history.record(status("m1", START, MigrationStatus.MigrationState.FAILED));
+        history.record(status("m1", START.plusMinutes(2), MigrationStatus.MigrationState.IN_PROGRESS));
+
+        // When
+        PageResponse<MigrationHistoryEntry> entries = history.entries("m1", 0, 10);
+
+        // Then
+        assertThat(entries.getContent()).extracting(MigrationHistoryEntry::getState).containsExactly(
+                MigrationStatus.MigrationState.IN_PROGRESS, MigrationStatus.MigrationState.FAILED,
+                MigrationStatus.MigrationState.IN_PROGRESS);
+        assertThat(history.runs(0, 10).getContent()).extracting(MigrationHistoryEntry::getMigrationId)
+                .containsExactly("m1", "other", "m1");
+        assertThat(history.entries("unknown", 0, 10).getContent()).isEmpty();
+    }
+
+    @Test
+    void shouldRebuildIndexesFromStoreAfterRestart() {
+        // Given
+        history.record(status("m1", START, MigrationStatus.MigrationState.IN_PROGRESS));
+        history.record(status("m2", START.plusMinutes(1), MigrationStatus.MigrationState.IN_PROGRESS));
+        history.record(status("m1", START, MigrationStatus.MigrationState.COMPLETED));
+        history.close();
+
+        // When
+        history = new MigrationHistory(migrationConfig, objectMapper);
+        history.record(status("m2", START.plusMinutes(1), MigrationStatus.MigrationState.FAILED));
+
+        // Then
+        assertThat(history.runs(0, 10).getContent())
+                .extracting(MigrationHistoryEntry::getMigrationId, MigrationHistoryEntry::getState)
+                .containsExactly(
+                        tuple("m2", MigrationStatus.MigrationState.FAILED),
+                        tuple("m1", MigrationStatus.MigrationState.COMPLETED));
+        assertThat(history.entries("m1", 0, 10).getContent()).hasSize(2);
+    }
+
+    private MigrationStatus status(String migrationId, LocalDateTime startedAt, MigrationStatus.MigrationState state) {
+        return MigrationStatus.builder()
+                .id(migrationId)
+                .state(state)
+                .startedAt(startedAt)
+                .statistics(MigrationStatus.Statistics.builder().totalSubscribers(10).build())
+                .build();
+    }
+}
@@ -0,0 +1,230 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.PageResponse;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationHistoryEntry;
+import digital.pragmatech.model.common.MigrationStatus;
+import digital.pragmatech.service.http.ApiConcurrencyLimiters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+class MigrationProgressTrackerTest {
+
+    private static final MigrationStatus.MigrationPhase SUBSCRIBERS = MigrationStatus.MigrationPhase.SUBSCRIBER_MIGRATION;
+
+    @TempDir
+    private Path directory;
+
+    private MigrationProgressTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getStorage().setDirectory(directory.toString());
+        migrationConfig.getErrors().setRecentLimit(100);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        tracker = new MigrationProgressTracker(mock(ProgressBroadcaster.class), mock(ApiConcurrencyLimiters.class),
+                migrationConfig, new ErrorStore(migrationConfig, objectMapper), objectMapper,
+                new MigrationHistory(migrationConfig, objectMapper));
+        tracker.initializeMigration("m1");
+        tracker.updatePhase("m1", SUBSCRIBERS);
+    }
+
+    @Test
+    void shouldCountEveryItemReportedConcurrently() throws Exception {
+        // Given
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        List<Future<?>> reports = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            reports.add(workers.submit(() -> {
+                for (int batch = 0; batch < 1000; batch++) {
+                    tracker.addTotal("m1", SUBSCRIBERS, 10);
+                    tracker.recordItems("m1", SUBSCRIBERS, 9, 1);
+                    if (batch % 100 == 0) {
+                        tracker.addError("m1", "SUBSCRIBER_MIGRATION", "Subscriber", "a@example.com",
+                                "rejected", "SUBSCRIBER_IMPORT_FAILED", true);
+                    }
+                }
+            }));
+        }
+        for (Future<?> report : reports) {
+            report.get();
+        }
+        workers.shutdown();
+
+        // Then
+        MigrationStatus status = tracker.getStatus("m1");
+        assertThat(status.getProgress().getTotalItems()).isEqualTo(80_000);
+        assertThat(status.getProgress().getSuccessfulItems()).isEqualTo(72_000);
+        assertThat(status.getProgress().getFailedItems()).isEqualTo(8_000);
+        assertThat(status.getProgress().getPercentComplete()).isEqualTo(100.0);
+        assertThat(status.getPhases().get(SUBSCRIBERS).getProcessedItems()).isEqualTo(80_000);
+        assertThat(status.getStatistics().getTotalSubscribers()).isEqualTo(80_000);
+        assertThat(status.getStatistics().getMigratedSubscribers()).isEqualTo(72_000);
+        assertThat(status.getErrors()).hasSize(80);
+    }
+
+    @Test
+    void shouldReturnSnapshotsUnaffectedByLaterUpdates() {
+        // Given
+        tracker.addTotal("m1", SUBSCRIBERS, 100);
+        tracker.recordItems("m1", SUBSCRIBERS, 10, 0);
+        MigrationStatus before = tracker.getStatus("m1");
+
+        // When
+        tracker.recordItems("m1", SUBSCRIBERS, 40, 0);
+        tracker.addError("m1", "SUBSCRIBER_MIGRATION", "Batch", "batch", "failed", "BATCH_MIGRATION_FAILED", true);
+        tracker.failMigration("m1", "stopped");
+
+        // Then
+        assertThat(before.getProgress().getProcessedItems()).isEqualTo(10);
+        assertThat(before.getErrors()).isEmpty();
+        assertThat(before.getState()).isEqualTo(MigrationStatus.MigrationState.IN_PROGRESS);
+
+        MigrationStatus after = tracker.getStatus("m1");
+        assertThat(after.getProgress().getProcessedItems()).isEqualTo(50);
+        assertThat(after.getErrors()).hasSize(2);
+        assertThat(after.getState()).isEqualTo(MigrationStatus.MigrationState.FAILED);
+        assertThat(after.getPhases().get(SUBSCRIBERS).getState()).isEqualTo(MigrationStatus.MigrationState.FAILED);
+    }
+
+    @Test
+    void shouldReportOverallProgressOfPhasesRunningInParallel() {
+        // Given the subscriber import runs while tags and the e-commerce setup start after it
+        tracker.addTotal("m1", SUBSCRIBERS, 900);
+        tracker.updatePhase("m1", MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
+        tracker.addTotal("m1", MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, 100);
+        tracker.updatePhase("m1", MigrationStatus.MigrationPhase.ECOMMERCE_SETUP);
+
+        // When
+        tracker.recordItems("m1", SUBSCRIBERS, 400, 0);
+        tracker.recordItems("m1", MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION, 100, 0);
+        tracker.completePhase("m1", MigrationStatus.MigrationPhase.TAG_GROUP_MIGRATION);
+        tracker.completePhase("m1", MigrationStatus.MigrationPhase.ECOMMERCE_SETUP);
+
+        // Then
+        MigrationStatus status = tracker.getStatus("m1");
+        assertThat(status.getPhase()).isEqualTo(SUBSCRIBERS);
+        assertThat(status.getProgress().getTotalItems()).isEqualTo(1000);
+        assertThat(status.getProgress().getProcessedItems()).isEqualTo(500);
+        assertThat(status.getProgress().getPercentComplete()).isEqualTo(50.0);
+    }
+
+    @Test
+    void shouldReuseSerializedStatusUntilMigrationChanges() {
+        // Given
+        SerializedStatus first = tracker.getSerializedStatus("m1");
+
+        // When
+        SerializedStatus unchanged = tracker.getSerializedStatus("m1");
+        tracker.recordItems("m1", SUBSCRIBERS, 1, 0);
+        SerializedStatus changed = tracker.getSerializedStatus("m1");
+
+        // Then
+        assertThat(unchanged).isSameAs(first);
+        assertThat(changed).isNotSameAs(first);
+        assertThat(changed.getEtag()).isNotEqualTo(first.getEtag());
+        assertThat(changed.getStatus().getProgress().getProcessedItems()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepOnlyRecentErrorsInMemoryAndAllOfThemOnDisk() {
+        // When
+        for (int i = 0; i < 250; i++) {
+            tracker.addError("m1", "SUBSCRIBER_MIGRATION", "Subscriber", "member" + i + "@example.com",
+                    "rejected " + i, i % 5 == 0 ? "BATCH_MIGRATION_FAILED" : "SUBSCRIBER_IMPORT_FAILED", true);
+        }
+
+        // Then
+        MigrationStatus status = tracker.getStatus("m1");
+        assertThat(status.getErrorCount()).isEqualTo(250);
+        assertThat(status.getErrors()).hasSize(100);
+        assertThat(status.getErrors().get(0).getErrorMessage()).isEqualTo("rejected 150");
+        assertThat(status.getErrors().get(99).getErrorMessage()).isEqualTo("rejected 249");
+        assertThat(status.getErrorSummary())
+                .extracting(MigrationStatus.ErrorSummary::getErrorCode, MigrationStatus.ErrorSummary::getCount)
+                .containsExactly(tuple("SUBSCRIBER_IMPORT_FAILED", 200L), tuple("BATCH_MIGRATION_FAILED", 50L));
+
+        PageResponse<MigrationStatus.MigrationError> firstPage = tracker.getErrors("m1", 0, 100);
+        assertThat(firstPage.getContent()).hasSize(100);
+        assertThat(firstPage.getContent().get(0).getErrorMessage()).isEqualTo("rejected 0");
+        assertThat(firstPage.isHasNext()).isTrue();
+
+        PageResponse<MigrationStatus.MigrationError> lastPage = tracker.getErrors("m1", 2, 100);
+        assertThat(lastPage.getContent()).hasSize(50);
+        assertThat(lastPage.getContent().get(49).getEntityId()).isEqualTo("member249@example.com");
+        assertThat(lastPage.isHasNext()).isFalse();
+    }
+
+    @Test
+    void shouldNumberErrorsOfResumedMigrationAfterThoseOfItsEarlierRun() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            tracker.addError("m1", "SUBSCRIBER_MIGRATION", "Subscriber", "member" + i + "@example.com",
+                    "rejected " + i, "SUBSCRIBER_IMPORT_FAILED", true);
+        }
+        // Recorded as an error of its own
+        tracker.failMigration("m1", "interrupted");
+
+        // When
+        tracker.initializeMigration("m1");
+        tracker.addError("m1", "SUBSCRIBER_MIGRATION", "Subscriber", "member3@example.com",
+                "rejected 3", "SUBSCRIBER_IMPORT_FAILED", true);
+
+        // Then
+        MigrationStatus status = tracker.getStatus("m1");
+        assertThat(status.getErrorCount()).isEqualTo(5);
+        assertThat(status.getErrors()).extracting(MigrationStatus.MigrationError::getErrorMessage)
+                .containsExactly("rejected 3");
+        // The last error is number errorCount - 1, on the status and in the error file alike
+        assertThat(tracker.getErrors("m1", 4, 1).getContent())
+                .extracting(MigrationStatus.MigrationError::getErrorMessage)
+                .containsExactly("rejected 3");
+    }
+
+    @Test
+    void shouldRecordEveryTransitionInHistory() {
+        // Given
+        tracker.addTotal("m1", SUBSCRIBERS, 10);
+        tracker.recordItems("m1", SUBSCRIBERS, 10, 0);
+
+        // When
+        tracker.completePhase("m1", SUBSCRIBERS);
+        tracker.completeMigration("m1");
+
+        // Then
+        assertThat(tracker.getHistory("m1", 0, 10).getContent())
+                .extracting(MigrationHistoryEntry::getState)
+                .containsExactly(MigrationStatus.MigrationState.COMPLETED, MigrationStatus.MigrationState.IN_PROGRESS,
+                        MigrationStatus.MigrationState.IN_PROGRESS, MigrationStatus.MigrationState.IN_PROGRESS);
+
+        MigrationHistoryEntry run = tracker.getHistory(null, 0, 10).getContent().get(0);
+        assertThat(run.getState()).isEqualTo(MigrationStatus.MigrationState.COMPLETED);
+        assertThat(run.getStatistics().getMigratedSubscribers()).isEqualTo(10);
+        assertThat(run.getPhases().get(SUBSCRIBERS).getCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldRejectErrorPagesOfIdsOutsideErrorDirectory() {
+        // When & Then
+        assertThatThrownBy(() -> tracker.getErrors("../history/index", 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,103 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.exception.ApiException;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+import digital.pragmatech.service.mailchimp.MailchimpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MigrationTotalsTest {
+
+    private MailchimpService mailchimpService;
+    private MigrationConfig.LanesConfig lanes;
+
+    @BeforeEach
+    void setUp() {
+        mailchimpService = mock(MailchimpService.class);
+        lanes = new MigrationConfig.LanesConfig();
+        lanes.setSkipCleaned(true);
+    }
+
+    @Test
+    void shouldCountLanesFromListStatsAndRequestTheRest() throws Exception {
+        // Given
+        when(mailchimpService.countMembers("list1", "pending")).thenReturn(7);
+        when(mailchimpService.getAllTags("list1")).thenReturn(List.of("VIP", "vip!", "Newsletter"));
+
+        // When
+        MigrationTotals totals = MigrationTotals.count(run(MigrationCheckpoint.inMemory("m1")),
+                List.of(list("list1", Map.of("member_count", 120, "unsubscribe_count", 30, "open_rate", 42.5))), lanes);
+
+        // Then
+        assertThat(totals.remaining(new SubscriberLane("list1", "subscribed"))).isEqualTo(120);
+        assertThat(totals.remaining(new SubscriberLane("list1", "pending"))).isEqualTo(7);
+        assertThat(totals.remaining(new SubscriberLane("list1", "unsubscribed"))).isEqualTo(30);
+        assertThat(totals.subscribers()).isEqualTo(157);
+        assertThat(totals.plannedBatches(50)).isEqualTo(3 + 1 + 1);
+        // "VIP" and "vip!" become different groups, as names are case-sensitive
+        assertThat(totals.tags()).isEqualTo(3);
+        verify(mailchimpService, never()).countMembers("list1", "subscribed");
+    }
+
+    @Test
+    void shouldLeaveOutWhatCheckpointAlreadyCovers() throws Exception {
+        // Given
+        MigrationCheckpoint checkpoint = MigrationCheckpoint.inMemory("m1");
+        checkpoint.listCompleted("list1-subscribed");
+        checkpoint.batchAcknowledged("list1-unsubscribed", 20);
+        when(mailchimpService.countMembers("list1", "pending")).thenReturn(0);
+        when(mailchimpService.getAllTags("list1")).thenReturn(List.of());
+
+        // When
+        MigrationTotals totals = MigrationTotals.count(run(checkpoint),
+                List.of(list("list1", Map.of("member_count", 120, "unsubscribe_count", 30))), lanes);
+
+        // Then
+        assertThat(totals.remaining(new SubscriberLane("list1", "subscribed"))).isZero();
+        assertThat(totals.remaining(new SubscriberLane("list1", "unsubscribed"))).isEqualTo(10);
+        assertThat(totals.subscribers()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldLeaveCountsUnknownThatCouldNotBeRead() throws Exception {
+        // Given
+        when(mailchimpService.countMembers("list1", "pending"))
+                .thenThrow(new ApiException("Mailchimp", HttpStatus.SERVICE_UNAVAILABLE, "unavailable"));
+        when(mailchimpService.getAllTags(anyString()))
+                .thenThrow(new ApiException("Mailchimp", HttpStatus.SERVICE_UNAVAILABLE, "unavailable"));
+
+        // When
+        MigrationTotals totals = MigrationTotals.count(run(MigrationCheckpoint.inMemory("m1")),
+                List.of(list("list1", Map.of("member_count", 120))), lanes);
+
+        // Then
+        assertThat(totals.remaining(new SubscriberLane("list1", "subscribed"))).isEqualTo(120);
+        assertThat(totals.remaining(new SubscriberLane("list1", "pending"))).isNull();
+        assertThat(totals.tags()).isNull();
+    }
+
+    private MigrationRun run(MigrationCheckpoint checkpoint) {
+        return new MigrationRun("m1", mailchimpService, null, checkpoint, new MigrationControl(), MigrationStaging.disabled());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private MailchimpList list(String id, Map<String, ?> stats) {
+        MailchimpList list = new MailchimpList();
+        list.setId(id);
+        // Parsed from JSON, stats hold whatever number type the value has
+        list.setStats((Map) stats);
+        return list;
+    }
+}
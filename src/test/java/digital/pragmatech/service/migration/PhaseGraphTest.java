@@ -0,0 +1,134 @@
+package digital.pragmatech.service.migration;
+
+import digital.pragmatech.model.common.MigrationStatus.MigrationPhase;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhaseGraphTest {
+
+    @Test
+    void shouldRunIndependentPhasesConcurrentlyAndDependentsAfterwards() throws Exception {
+        // Given
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        List<MigrationPhase> finished = new CopyOnWriteArrayList<>();
+        Runnable independent = () -> {
+            bothRunning.countDown();
+            try {
+                assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        PhaseGraph graph = new PhaseGraph()
+                .add(MigrationPhase.TAG_GROUP_MIGRATION, () -> {
+                    independent.run();
+                    finished.add(MigrationPhase.TAG_GROUP_MIGRATION);
+                })
+                .add(MigrationPhase.ECOMMERCE_SETUP, () -> {
+                    independent.run();
+                    finished.add(MigrationPhase.ECOMMERCE_SETUP);
+                })
+                .add(MigrationPhase.CAMPAIGN_MIGRATION, () -> finished.add(MigrationPhase.CAMPAIGN_MIGRATION),
+                        MigrationPhase.TAG_GROUP_MIGRATION, MigrationPhase.ECOMMERCE_SETUP);
+
+        // When
+        graph.run("m1", new MigrationControl());
+
+        // Then
+        assertThat(finished).hasSize(3).endsWith(MigrationPhase.CAMPAIGN_MIGRATION);
+    }
+
+    @Test
+    void shouldRunPhaseAfterDependencyThatComesLaterInMigrationOrder() throws Exception {
+        // Given
+        List<MigrationPhase> finished = new CopyOnWriteArrayList<>();
+        PhaseGraph graph = new PhaseGraph()
+                .add(MigrationPhase.CAMPAIGN_MIGRATION, () -> finished.add(MigrationPhase.CAMPAIGN_MIGRATION))
+                .add(MigrationPhase.TAG_GROUP_MIGRATION, () -> finished.add(MigrationPhase.TAG_GROUP_MIGRATION),
+                        MigrationPhase.CAMPAIGN_MIGRATION);
+
+        // When
+        graph.run("m1", new MigrationControl());
+
+        // Then
+        assertThat(finished).containsExactly(MigrationPhase.CAMPAIGN_MIGRATION, MigrationPhase.TAG_GROUP_MIGRATION);
+    }
+
+    @Test
+    void shouldInterruptRunningPhasesAndSkipDependentsWhenAPhaseFails() {
+        // Given
+        AtomicBoolean siblingInterrupted = new AtomicBoolean();
+        AtomicBoolean dependentRan = new AtomicBoolean();
+
+        PhaseGraph graph = new PhaseGraph()
+                .add(MigrationPhase.TAG_GROUP_MIGRATION, () -> {
+                    throw new IllegalStateException("group creation failed");
+                })
+                .add(MigrationPhase.SUBSCRIBER_MIGRATION, () -> {
+                    try {
+                        Thread.sleep(30_000);
+                    } catch (InterruptedException e) {
+                        siblingInterrupted.set(true);
+                    }
+                })
+                .add(MigrationPhase.CAMPAIGN_MIGRATION, () -> dependentRan.set(true),
+                        MigrationPhase.TAG_GROUP_MIGRATION, MigrationPhase.SUBSCRIBER_MIGRATION);
+        long startedAt = System.nanoTime();
+
+        // When & Then
+        assertThatThrownBy(() -> graph.run("m1", new MigrationControl()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("group creation failed");
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(5));
+        assertThat(siblingInterrupted).isTrue();
+        assertThat(dependentRan).isFalse();
+    }
+
+    @Test
+    void shouldLetSubscribersWaitOnlyForTheGroupOfTheirTag() throws Exception {
+        // Given
+        TagGroups tagGroups = new TagGroups();
+        CountDownLatch vipCreated = new CountDownLatch(1);
+        CountDownLatch subscriberDone = new CountDownLatch(1);
+        AtomicBoolean subscriberWaitedForWholePhase = new AtomicBoolean();
+
+        PhaseGraph graph = new PhaseGraph()
+                .add(MigrationPhase.TAG_GROUP_MIGRATION, () -> {
+                    tagGroups.created("vip", "group-1");
+                    vipCreated.countDown();
+                    try {
+                        // The remaining groups take a while; the subscriber must not wait for them
+                        subscriberWaitedForWholePhase.set(!subscriberDone.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    tagGroups.complete();
+                })
+                .add(MigrationPhase.SUBSCRIBER_MIGRATION, () -> {
+                    try {
+                        assertThat(tagGroups.await("vip")).isEqualTo("group-1");
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    subscriberDone.countDown();
+                });
+
+        // When
+        graph.run("m1", new MigrationControl());
+
+        // Then
+        assertThat(vipCreated.getCount()).isZero();
+        assertThat(subscriberWaitedForWholePhase).isFalse();
+        assertThat(tagGroups.await("unknown")).isNull();
+    }
+}
@@ -0,0 +1,223 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ProgressBroadcasterTest {
+
+    private static final String TOPIC = "/topic/migration-progress/m1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpMessagingTemplate messagingTemplate;
+    private ProgressBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getProgress().setMaxBroadcastsPerSecond(5);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        broadcaster = new ProgressBroadcaster(messagingTemplate, new ProgressEventStreams(migrationConfig),
+                objectMapper, migrationConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void shouldCoalesceUpdatesIntoLatestValue() {
+        // Given
+        AtomicReference<MigrationStatus> status = new AtomicReference<>();
+
+        // When
+        for (int i = 1; i <= 1000; i++) {
+            status.set(status(i));
+            broadcaster.publish("m1", () -> serialized(status.get()));
+        }
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(sent()).hasSize(1));
+        verify(messagingTemplate, after(500).times(1)).send(eq(TOPIC), any());
+        assertThat(json(sent().get(0)).at("/status/progress/processedItems").asInt()).isEqualTo(1000);
+    }
+
+    @Test
+    void shouldSendSnapshotFirstAndOnlyChangesAfterwards() {
+        // Given
+        MigrationStatus first = status(10);
+        first.getErrors().add(error("first"));
+        first.setErrorCount(1);
+        broadcaster.publishNow("m1", () -> serialized(first));
+
+        // When
+        MigrationStatus second = first.toBuilder()
+                .progress(MigrationStatus.Progress.builder().processedItems(20).build())
+                .errors(List.of(error("first"), error("second")))
+                .errorCount(2)
+                .build();
+        broadcaster.publishNow("m1", () -> serialized(second));
+
+        // Then
+        List<JsonNode> messages = sent().stream().map(this::json).toList();
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).get("type").asText()).isEqualTo("SNAPSHOT");
+        assertThat(messages.get(0).at("/status/errors").size()).isEqualTo(1);
+
+        JsonNode delta = messages.get(1);
+        assertThat(delta.get("type").asText()).isEqualTo("DELTA");
+        assertThat(delta.get("baseVersion").asLong()).isEqualTo(messages.get(0).get("version").asLong());
+        assertThat(delta.get("version").asLong()).isEqualTo(messages.get(0).get("version").asLong() + 1);
+        assertThat(delta.get("changes").fieldNames()).toIterable().containsOnly("progress", "errorCount");
+        assertThat(delta.get("errorsFrom").asLong()).isEqualTo(1L);
+        assertThat(delta.get("newErrors").findValuesAsText("errorMessage")).containsExactly("second");
+    }
+
+    @Test
+    void shouldWriteSnapshotStatusAsItWasSerializedAlready() {
+        // Given a status serialized once, in a form the broadcaster's own mapper would not produce
+        SerializedStatus status = SerializedStatus.of(status(10),
+                new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT));
+
+        // When
+        broadcaster.publishNow("m1", () -> status);
+
+        // Then
+        Message<?> frame = sent().get(0);
+        assertThat(new String((byte[]) frame.getPayload(), StandardCharsets.UTF_8)).contains("\n");
+        assertThat(json(frame).at("/status/progress/processedItems").asInt()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldSkipMessageWhenNothingChanged() {
+        // Given
+        MigrationStatus status = status(10);
+
+        // When
+        broadcaster.publishNow("m1", () -> serialized(status));
+        broadcaster.publishNow("m1", () -> serialized(status));
+
+        // Then
+        assertThat(sent()).hasSize(1);
+        assertThat(broadcaster.snapshot(serialized(status)).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAnnounceNewMigrationsAndMarkOnlyCoalescedDeltasDroppable() {
+        // Given
+        broadcaster.publishNow("m1", () -> serialized(status(10)));
+
+        // When
+        broadcaster.publish("m1", () -> serialized(status(20)));
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(sent()).hasSize(2));
+        assertThat(sent()).extracting(frame -> SimpMessageHeaderAccessor.wrap(frame).getFirstNativeHeader("droppable"))
+                .containsExactly("false", "true");
+
+        ArgumentCaptor<Message<?>> announcements = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/migrations"), announcements.capture());
+        // The same bytes as the snapshot on the migration's own topic
+        assertThat(announcements.getValue().getPayload()).isSameAs(sent().get(0).getPayload());
+    }
+
+    @Test
+    void shouldSendOnlyMostRecentErrorsWhenMoreWereAddedThanStatusHolds() {
+        // Given
+        MigrationStatus first = status(10);
+        broadcaster.publishNow("m1", () -> serialized(first));
+
+        // When
+        MigrationStatus second = first.toBuilder()
+                .errors(List.of(error("error 8"), error("error 9"), error("error 10")))
+                .errorCount(10)
+                .build();
+        broadcaster.publishNow("m1", () -> serialized(second));
+
+        // Then
+        JsonNode delta = json(sent().get(1));
+        assertThat(delta.get("errorsFrom").asLong()).isEqualTo(7L);
+        assertThat(delta.get("newErrors").findValuesAsText("errorMessage"))
+                .containsExactly("error 8", "error 9", "error 10");
+    }
+
+    @Test
+    void shouldNumberDeltaErrorsSoSnapshotFetchedInBetweenCanSkipThem() {
+        // Given
+        MigrationStatus first = status(10);
+        broadcaster.publishNow("m1", () -> serialized(first));
+        MigrationStatus second = first.toBuilder()
+                .errors(List.of(error("first"), error("second")))
+                .errorCount(2)
+                .build();
+
+        // When
+        ProgressMessage snapshot = broadcaster.snapshot(serialized(second));
+        broadcaster.publishNow("m1", () -> serialized(second));
+
+        // Then
+        JsonNode delta = json(sent().get(1));
+        assertThat(delta.get("baseVersion").asLong()).isEqualTo(snapshot.getVersion());
+        // Errors numbered below the snapshot's errorCount are already in it
+        long alreadyInSnapshot = snapshot.getStatus().getStatus().getErrorCount() - delta.get("errorsFrom").asLong();
+        assertThat(alreadyInSnapshot).isEqualTo(delta.get("newErrors").size());
+    }
+
+    private List<Message<?>> sent() {
+        ArgumentCaptor<Message<?>> frames = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, atLeast(0)).send(eq(TOPIC), frames.capture());
+        return frames.getAllValues();
+    }
+
+    private JsonNode json(Message<?> frame) {
+        try {
+            return objectMapper.readTree((byte[]) frame.getPayload());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SerializedStatus serialized(MigrationStatus status) {
+        return SerializedStatus.of(status, objectMapper);
+    }
+
+    private MigrationStatus status(int processed) {
+        return MigrationStatus.builder()
+                .id("m1")
+                .state(MigrationStatus.MigrationState.IN_PROGRESS)
+                .progress(MigrationStatus.Progress.builder().processedItems(processed).build())
+                .build();
+    }
+
+    private MigrationStatus.MigrationError error(String message) {
+        return MigrationStatus.MigrationError.builder().errorMessage(message).build();
+    }
+}
@@ -0,0 +1,168 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.dto.response.ProgressMessage;
+import digital.pragmatech.dto.response.SerializedStatus;
+import digital.pragmatech.model.common.MigrationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ProgressEventStreamsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ProgressEventStreams streams;
+
+    @BeforeEach
+    void setUp() {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getProgress().setReplayLimit(3);
+        streams = new ProgressEventStreams(migrationConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streams.shutdown();
+    }
+
+    @Test
+    void shouldStartWithSnapshotAndFollowWithPublishedMessages() {
+        // Given
+        CapturingEmitter emitter = new CapturingEmitter();
+        streams.open(emitter, "m1", null, () -> snapshot(1, MigrationStatus.MigrationState.IN_PROGRESS));
+
+        // When
+        streams.publish(delta(2, Map.of("progress", "x")));
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertThat(emitter.versions()).containsExactly(1L, 2L));
+    }
+
+    @Test
+    void shouldReplayMissedMessagesAfterLastEventId() {
+        // Given
+        streams.publish(snapshot(1, MigrationStatus.MigrationState.IN_PROGRESS));
+        streams.publish(delta(2, Map.of("progress", "x")));
+        streams.publish(delta(3, Map.of("progress", "y")));
+        AtomicBoolean snapshotRead = new AtomicBoolean();
+
+        // When
+        CapturingEmitter emitter = new CapturingEmitter();
+        streams.open(emitter, "m1", 1L, () -> {
+            snapshotRead.set(true);
+            return snapshot(3, MigrationStatus.MigrationState.IN_PROGRESS);
+        });
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertThat(emitter.versions()).containsExactly(2L, 3L));
+        assertThat(snapshotRead).isFalse();
+    }
+
+    @Test
+    void shouldFallBackToSnapshotWhenMissedMessagesAreNoLongerKept() {
+        // Given only the last three messages are kept
+        streams.publish(snapshot(1, MigrationStatus.MigrationState.IN_PROGRESS));
+        for (long version = 2; version <= 6; version++) {
+            streams.publish(delta(version, Map.of("progress", version)));
+        }
+
+        // When
+        CapturingEmitter emitter = new CapturingEmitter();
+        streams.open(emitter, "m1", 2L, () -> snapshot(6, MigrationStatus.MigrationState.IN_PROGRESS));
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertThat(emitter.versions()).containsExactly(6L));
+    }
+
+    @Test
+    void shouldEndStreamAfterFinalState() {
+        // Given
+        CapturingEmitter emitter = new CapturingEmitter();
+        streams.open(emitter, "m1", null, () -> snapshot(1, MigrationStatus.MigrationState.IN_PROGRESS));
+
+        // When
+        streams.publish(delta(2, Map.of("state", MigrationStatus.MigrationState.COMPLETED)));
+        streams.publish(delta(3, Map.of("progress", "x")));
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(emitter.completed).isTrue());
+        assertThat(emitter.versions()).containsExactly(1L, 2L);
+    }
+
+    private SerializedMessage snapshot(long version, MigrationStatus.MigrationState state) {
+        return serialized(ProgressMessage.builder()
+                .type(ProgressMessage.Type.SNAPSHOT)
+                .migrationId("m1")
+                .version(version)
+                .status(SerializedStatus.of(MigrationStatus.builder().id("m1").state(state).build(), objectMapper))
+                .build());
+    }
+
+    private SerializedMessage delta(long version, Map<String, Object> changes) {
+        return serialized(ProgressMessage.builder()
+                .type(ProgressMessage.Type.DELTA)
+                .migrationId("m1")
+                .version(version)
+                .baseVersion(version - 1)
+                .changes(changes)
+                .build());
+    }
+
+    private SerializedMessage serialized(ProgressMessage message) {
+        try {
+            return new SerializedMessage(message, objectMapper.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Records the versions of the events that would be written to the response
+    private class CapturingEmitter extends SseEmitter {
+
+        private final List<Long> versions = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(byte[].class::isInstance)
+                    .forEach(json -> versions.add(version((byte[]) json)));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        private List<Long> versions() {
+            return versions;
+        }
+
+        private long version(byte[] json) {
+            try {
+                return objectMapper.readTree(json).get("version").asLong();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package digital.pragmatech.service.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.config.MigrationConfig;
+import digital.pragmatech.model.mailchimp.MailchimpList;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import digital.pragmatech.service.mailchimp.MailchimpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriberPipelineTest {
+
+    @TempDir
+    private Path directory;
+
+    private MailchimpService mailchimpService;
+    private MigrationConfig migrationConfig;
+    private FairBatchScheduler scheduler;
+    private SubscriberPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        mailchimpService = mock(MailchimpService.class);
+        migrationConfig = new MigrationConfig();
+        migrationConfig.setBatchSize(10);
+        migrationConfig.getPipeline().setPageSize(50);
+        migrationConfig.getPipeline().setMaxInFlightBatches(2);
+        migrationConfig.getPipeline().setImportConcurrency(4);
+
+        migrationConfig.getStorage().setDirectory(directory.toString());
+        // Lanes are covered by their own test; the others read each list in one go
+        migrationConfig.getLanes().setEnabled(false);
+
+        MigrationProgressTracker progressTracker = mock(MigrationProgressTracker.class);
+        scheduler = new FairBatchScheduler(migrationConfig);
+        pipeline = new SubscriberPipeline(scheduler, progressTracker, migrationConfig,
+                new DeadLetterQueue(migrationConfig, new ObjectMapper().findAndRegisterModules(), progressTracker));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldImportAllPagesWithoutExceedingInFlightLimit() throws Exception {
+        // Given
+        when(mailchimpService.getMembersPage(eq("list1"), isNull(), anyInt(), eq(50)))
+                .thenReturn(members(50), members(50), members(20));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+
+        // When
+        SubscriberPipeline.PipelineResult result = pipeline.migrate(run(MigrationCheckpoint.inMemory("m1"), new MigrationControl()), List.of(list("list1")), batch -> {
+            maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+        });
+
+        // Then
+        assertThat(result.totalSubscribers()).isEqualTo(120);
+        assertThat(result.migratedSubscribers()).isEqualTo(120);
+        assertThat(result.failedSubscribers()).isZero();
+        assertThat(maxObserved.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldPrepareBatchesOnMigrationThreadAndOnlyImportOnWorkers() throws Exception {
+        // Given
+        when(mailchimpService.getMembersPage(eq("list1"), isNull(), anyInt(), eq(50)))
+                .thenReturn(members(30));
+        List<String> preparedOn = Collections.synchronizedList(new ArrayList<>());
+        List<String> importedOn = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        pipeline.migrate(run(MigrationCheckpoint.inMemory("m1"), new MigrationControl()), List.of(list("list1")),
+                MigrationTotals.unknown(), batch -> {
+                    preparedOn.add(Thread.currentThread().getName());
+                    return members -> importedOn.add(Thread.currentThread().getName());
+                });
+
+        // Then
+        assertThat(preparedOn).hasSize(3).containsOnly(Thread.currentThread().getName());
+        assertThat(importedOn).hasSize(3).allMatch(name -> name.startsWith("batch-import-"));
+    }
+
+    @Test
+    void shouldCountFailedBatchesAndContinue() throws Exception {
+        // Given
+        when(mailchimpService.getMembersPage(eq("list1"), isNull(), anyInt(), eq(50)))
+                .thenReturn(members(30));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        SubscriberPipeline.PipelineResult result = pipeline.migrate(run(MigrationCheckpoint.inMemory("m1"), new MigrationControl()), List.of(list("list1")), batch -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("import rejected");
+            }
+        });
+
+        // Then
+        assertThat(result.migratedSubscribers()).isEqualTo(20);
+        assertThat(result.failedSubscribers()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldResumeFromCheckpointedOffsetAndSkipCompletedLists() throws Exception {
+        // Given
+        MigrationCheckpoint checkpoint = MigrationCheckpoint.inMemory("m1");
+        checkpoint.listCompleted("list1");
+        checkpoint.batchAcknowledged("list2", 100);
+        when(mailchimpService.getMembersPage("list2", null, 100, 50)).thenReturn(members(30));
+        AtomicInteger imported = new AtomicInteger();
+
+        // When
+        SubscriberPipeline.PipelineResult result = pipeline.migrate(run(checkpoint, new MigrationControl()),
+                List.of(list("list1"), list("list2")), batch -> imported.addAndGet(batch.size()));
+
+        // Then
+        assertThat(result.migratedSubscribers()).isEqualTo(30);
+        assertThat(imported.get()).isEqualTo(30);
+        assertThat(checkpoint.offsetFor("list2")).isEqualTo(130);
+        assertThat(checkpoint.isListCompleted("list2")).isTrue();
+        verify(mailchimpService, never()).getMembersPage(eq("list1"), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldNotFetchOrImportWhilePaused() throws Exception {
+        // Given
+        when(mailchimpService.getMembersPage(eq("list1"), isNull(), anyInt(), eq(50)))
+                .thenReturn(members(20));
+        MigrationControl control = new MigrationControl();
+        control.pause();
+        AtomicInteger imported = new AtomicInteger();
+
+        // When
+        CompletableFuture<SubscriberPipeline.PipelineResult> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pipeline.migrate(run(MigrationCheckpoint.inMemory("m1"), control), List.of(list("list1")),
+                        batch -> imported.addAndGet(batch.size()));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+
+        // Then
+        assertThat(result).isNotDone();
+        verify(mailchimpService, never()).getMembersPage(anyString(), any(), anyInt(), anyInt());
+
+        control.resume();
+        assertThat(result.get(5, TimeUnit.SECONDS).migratedSubscribers()).isEqualTo(20);
+        assertThat(imported.get()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldStopPromptlyWhenCancelledAndOnlyCheckpointFinishedBatches() throws Exception {
+        // Given
+        List<MailchimpMember> firstPage = members(50);
+        when(mailchimpService.getMembersPage(eq("list1"), isNull(), anyInt(), eq(50)))
+                .thenReturn(firstPage, members(50));
+        MigrationControl control = new MigrationControl();
+        MigrationCheckpoint checkpoint = MigrationCheckpoint.inMemory("m1");
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<SubscriberPipeline.PipelineResult> result = CompletableFuture.supplyAsync(() -> {
+            control.attach(Thread.currentThread());
+            try {
+                return pipeline.migrate(run(checkpoint, control), List.of(list("list1")), batch -> {
+                    started.incrementAndGet();
+                    if (batch.get(0) != firstPage.get(0)) {
+                        blockUntilInterrupted();
+                    }
+                });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.get() >= 3);
+
+        // When
+        long cancelledAt = System.nanoTime();
+        control.cancel();
+
+        // Then
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - cancelledAt)).isLessThan(Duration.ofSeconds(2));
+        assertThat(checkpoint.offsetFor("list1")).isEqualTo(10);
+        assertThat(checkpoint.isListCompleted("list1")).isFalse();
+    }
+
+    @Test
+    void shouldMigrateSubscribedMembersOfAllListsBeforeBackfill() throws Exception {
+        // Given
+        migrationConfig.getLanes().setEnabled(true);
+        migrationConfig.getLanes().setSkipCleaned(true);
+        when(mailchimpService.getMembersPage(anyString(), anyString(), anyInt(), anyInt())).thenReturn(members(5));
+
+        // When
+        pipeline.migrate(run(MigrationCheckpoint.inMemory("m1"), new MigrationControl()), List.of(list("list1"), list("list2")), batch -> {
+        });
+
+        // Then
+        InOrder order = inOrder(mailchimpService);
+        order.verify(mailchimpService).getMembersPage("list1", "subscribed", 0, 50);
+        order.verify(mailchimpService).getMembersPage("list2", "subscribed", 0, 50);
+        order.verify(mailchimpService).getMembersPage("list1", "pending", 0, 50);
+        order.verify(mailchimpService).getMembersPage("list2", "pending", 0, 50);
+        order.verify(mailchimpService).getMembersPage("list1", "unsubscribed", 0, 50);
+        order.verify(mailchimpService).getMembersPage("list2", "unsubscribed", 0, 50);
+        verify(mailchimpService, never()).getMembersPage(anyString(), eq("cleaned"), anyInt(), anyInt());
+    }
+
+    private void blockUntilInterrupted() {
+        try {
+            Thread.sleep(30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("import aborted", e);
+        }
+    }
+
+    private MigrationRun run(MigrationCheckpoint checkpoint, MigrationControl control) {
+        return new MigrationRun("m1", mailchimpService, null, checkpoint, control, MigrationStaging.disabled());
+    }
+
+    private MailchimpList list(String id) {
+        MailchimpList list = new MailchimpList();
+        list.setId(id);
+        return list;
+    }
+
+    private List<MailchimpMember> members(int count) {
+        List<MailchimpMember> members = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> {
+            MailchimpMember member = new MailchimpMember();
+            member.setId("member" + i);
+            member.setEmailAddress("member" + i + "@example.com");
+            member.setStatus("subscribed");
+            members.add(member);
+        });
+        return members;
+    }
+}
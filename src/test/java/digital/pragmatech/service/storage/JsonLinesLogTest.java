@@ -0,0 +1,57 @@
+package digital.pragmatech.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonLinesLogTest {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void shouldReadPagesAnywhereInLargeFileAndKeepUpWithAppends() {
+        // Given
+        JsonLinesLog log = new JsonLinesLog(directory.resolve("records.jsonl"), objectMapper);
+        IntStream.range(0, 3000).forEach(i -> log.append(Map.of("n", i)));
+
+        // When
+        List<Map> page = log.read(Map.class, 2500, 3);
+        IntStream.range(3000, 3100).forEach(i -> log.append(Map.of("n", i)));
+
+        // Then
+        assertThat(page).extracting(record -> record.get("n")).containsExactly(2500, 2501, 2502);
+        assertThat(log.read(Map.class, 3098, 10)).extracting(record -> record.get("n")).containsExactly(3098, 3099);
+        assertThat(log.read(Map.class, 0, 1)).extracting(record -> record.get("n")).containsExactly(0);
+        assertThat(log.size()).isEqualTo(3100);
+    }
+
+    @Test
+    void shouldNotCountBlankOrTornLines() throws Exception {
+        // Given
+        Path file = directory.resolve("records.jsonl");
+        Files.writeString(file, "{\"n\":0}\n\n{\"n\":1}\n{\"n\":2}\n{\"n\":", StandardCharsets.UTF_8);
+        JsonLinesLog log = new JsonLinesLog(file, objectMapper);
+
+        // When
+        long size = log.size();
+        Files.writeString(file, "3}\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // Then
+        assertThat(size).isEqualTo(3);
+        assertThat(log.size()).isEqualTo(4);
+        assertThat(log.read(Map.class, 1, 10)).extracting(record -> record.get("n")).containsExactly(1, 2, 3);
+    }
+}
@@ -0,0 +1,92 @@
+package digital.pragmatech.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.pragmatech.model.mailchimp.MailchimpMember;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StagingStoreTest {
+
+    // Small enough that a few dozen members span several segments
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void shouldReadRangesAcrossSegments() throws Exception {
+        // Given
+        StagingStore<MailchimpMember> store = newStore();
+        store.append(members(0, 30));
+        store.append(members(30, 30));
+
+        // When
+        List<MailchimpMember> range = store.read(25, 10);
+
+        // Then
+        assertThat(store.size()).isEqualTo(60);
+        assertThat(range).extracting(MailchimpMember::getEmailAddress).containsExactlyElementsOf(emails(25, 10));
+        assertThat(store.read(55, 10)).extracting(MailchimpMember::getEmailAddress).containsExactlyElementsOf(emails(55, 5));
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.getFileName().toString().startsWith("segment-")).count()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    void shouldContinueAfterReopen() {
+        // Given
+        StagingStore<MailchimpMember> store = newStore();
+        store.append(members(0, 20));
+        store.close();
+
+        // When
+        StagingStore<MailchimpMember> reopened = newStore();
+        reopened.append(members(20, 20));
+
+        // Then
+        assertThat(reopened.size()).isEqualTo(40);
+        assertThat(reopened.read(0, 40)).extracting(MailchimpMember::getEmailAddress).containsExactlyElementsOf(emails(0, 40));
+    }
+
+    @Test
+    void shouldIterateSequentiallyFromOffset() {
+        // Given
+        StagingStore<MailchimpMember> store = newStore();
+        store.append(members(0, 300));
+
+        // When
+        List<String> read = new ArrayList<>();
+        Iterator<MailchimpMember> reader = store.reader(10);
+        reader.forEachRemaining(member -> read.add(member.getEmailAddress()));
+
+        // Then
+        assertThat(read).containsExactlyElementsOf(emails(10, 290));
+    }
+
+    private StagingStore<MailchimpMember> newStore() {
+        return new StagingStore<>(directory, objectMapper, MailchimpMember.class, SEGMENT_SIZE);
+    }
+
+    private List<MailchimpMember> members(int from, int count) {
+        return emails(from, count).stream().map(email -> {
+            MailchimpMember member = new MailchimpMember();
+            member.setEmailAddress(email);
+            return member;
+        }).toList();
+    }
+
+    private List<String> emails(int from, int count) {
+        return IntStream.range(from, from + count).mapToObj(i -> "member" + i + "@example.com").toList();
+    }
+}
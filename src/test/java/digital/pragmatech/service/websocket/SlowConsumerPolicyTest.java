@@ -0,0 +1,79 @@
+package digital.pragmatech.service.websocket;
+
+import digital.pragmatech.config.MigrationConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerPolicyTest {
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private SlowConsumerPolicy policy;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MigrationConfig migrationConfig = new MigrationConfig();
+        migrationConfig.getWebsocket().setMaxPendingFrames(2);
+        policy = new SlowConsumerPolicy(migrationConfig);
+
+        WebSocketSession connection = mock(WebSocketSession.class);
+        when(connection.getId()).thenReturn("s1");
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        policy.decorate(handler).afterConnectionEstablished(connection);
+
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        session = decorated.getValue();
+    }
+
+    @Test
+    void shouldDropDroppableFramesOnceSessionFallsBehind() {
+        // Given two frames queued and not yet written
+        assertThat(policy.preSend(frame(true), channel)).isNotNull();
+        assertThat(policy.preSend(frame(true), channel)).isNotNull();
+
+        // When
+        Message<?> progress = policy.preSend(frame(true), channel);
+        Message<?> transition = policy.preSend(frame(false), channel);
+
+        // Then
+        assertThat(progress).isNull();
+        assertThat(transition).isNotNull();
+        assertThat(policy.getDroppedFrames()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeliverAgainOnceFramesAreWritten() throws Exception {
+        // Given
+        policy.preSend(frame(true), channel);
+        policy.preSend(frame(true), channel);
+
+        // When
+        session.sendMessage(new TextMessage("frame"));
+
+        // Then
+        assertThat(policy.preSend(frame(true), channel)).isNotNull();
+        assertThat(policy.getDroppedFrames()).isZero();
+    }
+
+    private Message<byte[]> frame(boolean droppable) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setNativeHeader(SlowConsumerPolicy.DROPPABLE_HEADER, String.valueOf(droppable));
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}